@@ -0,0 +1,46 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic datasets shared by the benchmarks. With "skewed" users, about half of all
+// expenses belong to the first 8% of users, so user0 is the heaviest account.
+final class BenchmarkData {
+    static final int USERS = 1_000;
+    static final String[] CATEGORIES = {"Food", "Travel", "Rent", "Utilities", "Entertainment", "Health"};
+    static final long START_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    static final long SPAN_MILLIS = 365L * 86_400_000L;
+
+    private BenchmarkData() {
+    }
+
+    static List<Expense> generate(int size, String userSkew, long seed) {
+        Random random = new Random(seed);
+        List<Expense> expenses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            expenses.add(Expense.ofCents("e" + i, "user" + userIndex(random, userSkew),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], 1 + random.nextInt(500_000),
+                    new Date(START_MILLIS + (long) (random.nextDouble() * SPAN_MILLIS))));
+        }
+        return expenses;
+    }
+
+    static ExpenseManager load(List<Expense> expenses) {
+        ExpenseManager manager = new ExpenseManager();
+        manager.addAll(expenses);
+        return manager;
+    }
+
+    private static int userIndex(Random random, String userSkew) {
+        switch (userSkew) {
+            case "uniform":
+                return random.nextInt(USERS);
+            case "skewed":
+                return (int) (USERS * Math.pow(random.nextDouble(), 3));
+            default:
+                throw new IllegalArgumentException("Unknown user skew: " + userSkew);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpenseManagerBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String userSkew;
+
+    private List<Expense> dataset;
+    private ExpenseManager manager;
+    private Date rangeStart;
+    private Date rangeEnd;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void loadDataset() {
+        dataset = BenchmarkData.generate(size, userSkew, 42);
+        rangeStart = new Date(BenchmarkData.START_MILLIS + BenchmarkData.SPAN_MILLIS / 4);
+        rangeEnd = new Date(BenchmarkData.START_MILLIS + BenchmarkData.SPAN_MILLIS / 4 + 30L * 86_400_000L);
+    }
+
+    // Rebuilt per iteration so rows added by addExpense do not pile up across iterations.
+    @Setup(Level.Iteration)
+    public void loadManager() {
+        manager = BenchmarkData.load(dataset);
+    }
+
+    @Benchmark
+    public Expense addExpense() {
+        Expense expense = Expense.ofCents("new" + nextId++, "user0", "Food", 1_234, rangeStart);
+        manager.addExpense(expense);
+        return expense;
+    }
+
+    @Benchmark
+    public boolean removeExpense(Removal removal) {
+        return removal.manager.removeExpense(removal.victim.getId());
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesByUser() {
+        return manager.getExpensesByUser("user0");
+    }
+
+    @Benchmark
+    public List<Expense> filterByCategory() {
+        return manager.filterByCategory("user0", "Food");
+    }
+
+    @Benchmark
+    public List<Expense> filterByDateRange() {
+        return manager.filterByDateRange("user0", rangeStart, rangeEnd);
+    }
+
+    @Benchmark
+    public List<Expense> sortExpensesByAmount() {
+        return manager.sortExpensesByAmount("user0");
+    }
+
+    @Benchmark
+    public List<Expense> topExpensesByAmount() {
+        return manager.topExpensesByAmount("user0", 10);
+    }
+
+    @Benchmark
+    public ExpensePage firstPageByUser() {
+        return manager.getExpensesByUser("user0", null, 50);
+    }
+
+    @Benchmark
+    public long queryCategoryRangeAndAmount() {
+        return manager.query(ExpenseQuery.forUser("user0").category("Food").between(rangeStart, rangeEnd)
+                .minAmount(100.0).maxAmount(2_000.0).build()).count();
+    }
+
+    // Kept apart so only removeExpense pays for invocation-level setup, which re-adds the row
+    // removed by the previous call.
+    @State(Scope.Benchmark)
+    public static class Removal {
+        private List<Expense> dataset;
+        private ExpenseManager manager;
+        private Expense victim;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void load(ExpenseManagerBenchmark benchmark) {
+            dataset = benchmark.dataset;
+            manager = BenchmarkData.load(dataset);
+        }
+
+        @Setup(Level.Invocation)
+        public void restoreVictim() {
+            if (victim != null && manager.getExpense(victim.getId()) == null) {
+                manager.addExpense(victim);
+            }
+            victim = dataset.get(next++ % dataset.size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Console output is left out: it measures the terminal, not the formatter.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportManagerBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String userSkew;
+
+    private final ExportManager exportManager = new ExportManager();
+    private List<Expense> expenses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expenses = BenchmarkData.generate(size, userSkew, 42);
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException {
+        return exportManager.export(expenses.iterator(), new DiscardingChannel(), ExportFormat.CSV);
+    }
+
+    @Benchmark
+    public long exportCsvParallel() throws IOException {
+        return exportManager.exportParallel(expenses.iterator(), new DiscardingChannel(), ExportFormat.CSV);
+    }
+
+    @Benchmark
+    public long exportBinary() throws IOException {
+        return exportManager.exportBinary(expenses.iterator(), new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer source) {
+            int written = source.remaining();
+            source.position(source.limit());
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
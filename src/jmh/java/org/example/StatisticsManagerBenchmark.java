@@ -0,0 +1,62 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsManagerBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String userSkew;
+
+    private final StatisticsManager statisticsManager = new StatisticsManager();
+    private List<Expense> userExpenses;
+    private long[] userAmounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExpenseManager manager = BenchmarkData.load(BenchmarkData.generate(size, userSkew, 42));
+        manager.addListener(statisticsManager);
+        userExpenses = manager.getExpensesByUser("user0");
+        userAmounts = manager.getAmountsInCents("user0");
+    }
+
+    @Benchmark
+    public double calculateTotal() {
+        return statisticsManager.calculateTotal(userExpenses);
+    }
+
+    @Benchmark
+    public double calculateMax() {
+        return statisticsManager.calculateMax(userExpenses);
+    }
+
+    @Benchmark
+    public double calculateAverage() {
+        return statisticsManager.calculateAverage(userExpenses);
+    }
+
+    @Benchmark
+    public double totalOfCents() {
+        return statisticsManager.totalOfCents(userAmounts);
+    }
+
+    @Benchmark
+    public UserStatistics userStatistics() {
+        return statisticsManager.getUserStatistics("user0");
+    }
+
+    @Benchmark
+    public double userP99() {
+        return statisticsManager.getUserPercentile("user0", 99);
+    }
+}
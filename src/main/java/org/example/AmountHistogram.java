@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Log-linear histogram over positive cent amounts, in the style of HdrHistogram. Amounts
+// below 128 cents get a bucket each; above that every power of two is split into 128 equal
+// buckets. A percentile is reported as the midpoint of its bucket, so it is exact below
+// 128 cents and otherwise within RELATIVE_ERROR (1/256, about 0.4%) of the true amount at
+// that rank. Buckets grow with the largest amount seen (at most 7296 counters), so a
+// percentile scan is bounded by a constant regardless of how many amounts were recorded.
+// Histograms with the same layout merge by adding counters. Not thread-safe.
+public class AmountHistogram {
+    public static final double RELATIVE_ERROR = 1.0 / 256;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT * 2];
+    private long totalCount;
+
+    public AmountHistogram() {
+    }
+
+    public AmountHistogram(AmountHistogram source) {
+        this.counts = Arrays.copyOf(source.counts, source.counts.length);
+        this.totalCount = source.totalCount;
+    }
+
+    public void record(long amountInCents) {
+        if (amountInCents <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        int index = indexOf(amountInCents);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+    }
+
+    // Returns false when no recorded amount shares the bucket, leaving the histogram unchanged.
+    public boolean remove(long amountInCents) {
+        if (amountInCents <= 0) {
+            return false;
+        }
+        int index = indexOf(amountInCents);
+        if (index >= counts.length || counts[index] == 0) {
+            return false;
+        }
+        counts[index]--;
+        totalCount--;
+        return true;
+    }
+
+    public void merge(AmountHistogram other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Histogram cannot be null");
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    // Nearest-rank percentile in cents; 0 for an empty histogram.
+    public long valueAtPercentile(double percentile) {
+        if (Double.isNaN(percentile) || percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(counts.length - 1);
+    }
+
+    static int indexOf(long amountInCents) {
+        return LogLinearBuckets.indexOf(amountInCents, SUB_BUCKET_BITS);
+    }
+
+    static long midpointOf(int index) {
+        return LogLinearBuckets.midpointOf(index, SUB_BUCKET_BITS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AmountHistogram{count=%d, p50=%d, p90=%d, p99=%d}", totalCount,
+                valueAtPercentile(50), valueAtPercentile(90), valueAtPercentile(99));
+    }
+}
@@ -0,0 +1,281 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+// Runs expense commands read one per line, without prompts. Fields are separated by
+// whitespace; blank lines and lines starting with '#' are skipped:
+//     add <user> <id> <category> <amount> [yyyy-MM-dd]
+//     remove <id>
+//     list <user>
+//     category <user> <category>
+//     range <user> <yyyy-MM-dd> <yyyy-MM-dd>
+//     sort <user>
+//     total <user>
+//     stats <user>
+// Every command writes at least one line to the caller's writer, and a failing command
+// writes "error line N: message" instead of stopping the run. Runs of consecutive adds are
+// committed through ExpenseManager.addAll, so a durable store syncs once per run, not per row;
+// if the store refuses a row in such a run, the run is retried row by row.
+// Single use: one instance per script.
+class BatchRunner {
+    static final int MAX_PENDING_ADDS = 4096;
+
+    private final ExpenseManager expenseManager;
+    private final StatisticsManager statisticsManager;
+    private final Writer out;
+    private final ZoneId zone;
+    private final DateRenderer dateRenderer;
+
+    private final List<Expense> pendingAdds = new ArrayList<>();
+    private final IntList pendingLines = new IntList();
+    private long commands;
+    private long errors;
+    private long elapsedNanos;
+
+    BatchRunner(ExpenseManager expenseManager, StatisticsManager statisticsManager, Writer out) {
+        this(expenseManager, statisticsManager, out, TimeZone.getDefault());
+    }
+
+    BatchRunner(ExpenseManager expenseManager, StatisticsManager statisticsManager, Writer out, TimeZone timeZone) {
+        this.expenseManager = expenseManager;
+        this.statisticsManager = statisticsManager;
+        this.out = out;
+        this.zone = timeZone.toZoneId();
+        this.dateRenderer = new DateRenderer(timeZone);
+    }
+
+    void run(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int lineNumber = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+                    continue;
+                }
+                commands++;
+                String[] fields = trimmed.split("\\s+");
+                if ("add".equals(fields[0])) {
+                    queueAdd(lineNumber, fields);
+                    continue;
+                }
+                commitAdds();
+                try {
+                    execute(fields);
+                } catch (IllegalArgumentException e) {
+                    error(lineNumber, e.getMessage());
+                }
+            }
+            commitAdds();
+        } finally {
+            // Output and timing so far stay available for the summary if the run stops early.
+            elapsedNanos = System.nanoTime() - start;
+            out.flush();
+        }
+    }
+
+    long getCommands() {
+        return commands;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    String summary() {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        double rate = seconds > 0 ? commands / seconds : 0;
+        return String.format("Processed %d commands (%d errors) in %.1f ms, %.0f commands/s",
+                commands, errors, elapsedNanos / 1_000_000.0, rate);
+    }
+
+    private void queueAdd(int lineNumber, String[] fields) throws IOException {
+        try {
+            expectFields(fields, 5, 6, "add <user> <id> <category> <amount> [yyyy-MM-dd]");
+            Date date = fields.length == 6 ? parseDate(fields[5]) : new Date();
+            pendingAdds.add(new Expense(fields[2], fields[1], fields[3], parseAmount(fields[4]), date));
+            pendingLines.add(lineNumber);
+        } catch (IllegalArgumentException e) {
+            // Keep output in line order: earlier adds are reported before this error.
+            commitAdds();
+            error(lineNumber, e.getMessage());
+            return;
+        }
+        if (pendingAdds.size() >= MAX_PENDING_ADDS) {
+            commitAdds();
+        }
+    }
+
+    private void commitAdds() throws IOException {
+        if (pendingAdds.isEmpty()) {
+            return;
+        }
+        try {
+            List<Expense> duplicates = expenseManager.addAll(pendingAdds);
+            int nextDuplicate = 0;
+            for (int i = 0; i < pendingAdds.size(); i++) {
+                Expense expense = pendingAdds.get(i);
+                if (nextDuplicate < duplicates.size() && duplicates.get(nextDuplicate) == expense) {
+                    nextDuplicate++;
+                    duplicate(pendingLines.get(i), expense);
+                } else {
+                    added(expense);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // The store refused a row it cannot hold and wrote none of the batch; commit the rows
+            // one at a time so only the bad ones are reported.
+            for (int i = 0; i < pendingAdds.size(); i++) {
+                commitAdd(pendingLines.get(i), pendingAdds.get(i));
+            }
+        }
+        pendingAdds.clear();
+        pendingLines.clear();
+    }
+
+    private void commitAdd(int lineNumber, Expense expense) throws IOException {
+        try {
+            if (expenseManager.addAll(Collections.singletonList(expense)).isEmpty()) {
+                added(expense);
+            } else {
+                duplicate(lineNumber, expense);
+            }
+        } catch (IllegalArgumentException e) {
+            error(lineNumber, e.getMessage());
+        }
+    }
+
+    private void added(Expense expense) throws IOException {
+        out.write("added ");
+        out.write(expense.getId());
+        out.write('\n');
+    }
+
+    private void duplicate(int lineNumber, Expense expense) throws IOException {
+        error(lineNumber, "Expense with ID " + expense.getId() + " already exists");
+    }
+
+    private void execute(String[] fields) throws IOException {
+        switch (fields[0]) {
+            case "remove":
+                expectFields(fields, 2, 2, "remove <id>");
+                out.write(expenseManager.removeExpense(fields[1]) ? "removed " : "not found ");
+                out.write(fields[1]);
+                out.write('\n');
+                break;
+            case "list":
+                expectFields(fields, 2, 2, "list <user>");
+                writeRows(expenseManager.getExpensesByUser(fields[1]));
+                break;
+            case "category":
+                expectFields(fields, 3, 3, "category <user> <category>");
+                writeRows(expenseManager.filterByCategory(fields[1], fields[2]));
+                break;
+            case "range":
+                expectFields(fields, 4, 4, "range <user> <yyyy-MM-dd> <yyyy-MM-dd>");
+                Date startDate = parseDate(fields[2]);
+                Date endDate = parseDate(fields[3]);
+                if (endDate.before(startDate)) {
+                    throw new IllegalArgumentException("End date must be after start date");
+                }
+                writeRows(expenseManager.filterByDateRange(fields[1], startDate, endDate));
+                break;
+            case "sort":
+                expectFields(fields, 2, 2, "sort <user>");
+                writeRows(expenseManager.sortExpensesByAmount(fields[1]));
+                break;
+            case "total":
+                expectFields(fields, 2, 2, "total <user>");
+                out.write("total ");
+                writeCents(statisticsManager.calculateTotalInCents(expenseManager.getExpensesByUser(fields[1])));
+                out.write('\n');
+                break;
+            case "stats":
+                expectFields(fields, 2, 2, "stats <user>");
+                List<Expense> expenses = expenseManager.getExpensesByUser(fields[1]);
+                out.write(String.format("stats count=%d total=%.2f max=%.2f average=%.2f%n", expenses.size(),
+                        statisticsManager.calculateTotal(expenses), statisticsManager.calculateMax(expenses),
+                        statisticsManager.calculateAverage(expenses)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + fields[0]);
+        }
+    }
+
+    private void writeRows(List<Expense> expenses) throws IOException {
+        for (Expense expense : expenses) {
+            out.write(expense.getId());
+            out.write(' ');
+            out.write(expense.getUserId());
+            out.write(' ');
+            out.write(expense.getCategory());
+            out.write(' ');
+            writeCents(expense.getAmountInCents());
+            out.write(' ');
+            out.write(dateRenderer.format(expense.getTimestamp()));
+            out.write('\n');
+        }
+        out.write("rows ");
+        out.write(Integer.toString(expenses.size()));
+        out.write('\n');
+    }
+
+    private void writeCents(long cents) throws IOException {
+        if (cents < 0) {
+            out.write('-');
+            cents = -cents;
+        }
+        out.write(Long.toString(cents / 100));
+        out.write('.');
+        long fraction = cents % 100;
+        out.write((char) ('0' + fraction / 10));
+        out.write((char) ('0' + fraction % 10));
+    }
+
+    private void error(int lineNumber, String message) throws IOException {
+        errors++;
+        out.write("error line ");
+        out.write(Integer.toString(lineNumber));
+        out.write(": ");
+        out.write(message);
+        out.write('\n');
+    }
+
+    private static void expectFields(String[] fields, int min, int max, String usage) {
+        if (fields.length < min || fields.length > max) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static double parseAmount(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + text);
+        }
+    }
+
+    private Date parseDate(String text) {
+        try {
+            return Date.from(LocalDate.parse(text).atStartOfDay(zone).toInstant());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid date: " + text + " (expected yyyy-MM-dd)");
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Column blocks: user and category dictionaries, ids, dictionary-coded user and category
+// columns, zigzag delta-coded timestamps and varint cents, each block followed by a CRC32.
+class BinaryExpenseFormat {
+    static final int MAGIC = 0x45585042; // "EXPB"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+    // Headers are checked before anything is allocated, so a corrupt or hostile file cannot
+    // ask for more than one block's worth of memory.
+    static final int MAX_BLOCK_BYTES = 1 << 26;
+    private static final int MIN_ROW_BYTES = 5; // one varint per column
+    private static final int STREAM_BUFFER_BYTES = 1 << 16;
+
+    private BinaryExpenseFormat() {
+    }
+
+    static long write(Iterator<Expense> expenses, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, STREAM_BUFFER_BYTES));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        BlockBuffer block = new BlockBuffer();
+        List<Expense> rows = new ArrayList<>(BLOCK_ROWS);
+        long total = 0;
+        while (expenses.hasNext()) {
+            rows.add(expenses.next());
+            if (rows.size() == BLOCK_ROWS || !expenses.hasNext()) {
+                encodeBlock(rows, block);
+                if (block.size > MAX_BLOCK_BYTES) {
+                    throw new IOException("Block of " + rows.size() + " rows exceeds " + MAX_BLOCK_BYTES + " bytes");
+                }
+                CRC32 crc = new CRC32();
+                crc.update(block.bytes, 0, block.size);
+                out.writeInt(rows.size());
+                out.writeInt(block.size);
+                out.write(block.bytes, 0, block.size);
+                out.writeInt((int) crc.getValue());
+                total += rows.size();
+                rows.clear();
+            }
+        }
+        out.writeInt(0); // end marker
+        out.flush();
+        return total;
+    }
+
+    static long read(InputStream input, Consumer<List<Expense>> blockConsumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, STREAM_BUFFER_BYTES));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary expense export");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary export version: " + version);
+        }
+        long total = 0;
+        byte[] payload = new byte[0];
+        while (true) {
+            int rowCount = in.readInt();
+            if (rowCount == 0) {
+                return total;
+            }
+            int length = in.readInt();
+            if (rowCount < 0 || rowCount > BLOCK_ROWS || length < 0 || length > MAX_BLOCK_BYTES
+                    || (long) rowCount * MIN_ROW_BYTES > length) {
+                throw new IOException("Corrupt block header after " + total + " rows");
+            }
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            in.readFully(payload, 0, length);
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != in.readInt()) {
+                throw new IOException("Block checksum mismatch after " + total + " rows");
+            }
+            blockConsumer.accept(decodeBlock(new BlockReader(payload, length), rowCount));
+            total += rowCount;
+        }
+    }
+
+    private static void encodeBlock(List<Expense> rows, BlockBuffer block) {
+        block.size = 0;
+        Map<String, Integer> users = new LinkedHashMap<>();
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        for (Expense expense : rows) {
+            users.putIfAbsent(expense.getUserId(), users.size());
+            categories.putIfAbsent(expense.getCategory(), categories.size());
+        }
+        writeDictionary(block, users.keySet());
+        writeDictionary(block, categories.keySet());
+        for (Expense expense : rows) {
+            block.writeString(expense.getId());
+        }
+        for (Expense expense : rows) {
+            block.writeVarLong(users.get(expense.getUserId()));
+        }
+        for (Expense expense : rows) {
+            block.writeVarLong(categories.get(expense.getCategory()));
+        }
+        long previous = 0;
+        for (Expense expense : rows) {
+            long delta = expense.getTimestamp() - previous;
+            block.writeVarLong((delta << 1) ^ (delta >> 63));
+            previous = expense.getTimestamp();
+        }
+        for (Expense expense : rows) {
+            block.writeVarLong(expense.getAmountInCents());
+        }
+    }
+
+    private static void writeDictionary(BlockBuffer block, Collection<String> values) {
+        block.writeVarLong(values.size());
+        for (String value : values) {
+            block.writeString(value);
+        }
+    }
+
+    private static List<Expense> decodeBlock(BlockReader reader, int rowCount) throws IOException {
+        String[] users = readDictionary(reader);
+        String[] categories = readDictionary(reader);
+        String[] ids = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = reader.readString();
+        }
+        int[] userColumn = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            userColumn[i] = reader.readIndex(users.length);
+        }
+        int[] categoryColumn = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            categoryColumn[i] = reader.readIndex(categories.length);
+        }
+        long[] timestamps = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long zigzag = reader.readVarLong();
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            timestamps[i] = previous;
+        }
+        List<Expense> expenses = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            try {
+                expenses.add(Expense.ofCents(ids[i], users[userColumn[i]], categories[categoryColumn[i]],
+                        reader.readVarLong(), new Date(timestamps[i])));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid row in block: " + e.getMessage(), e);
+            }
+        }
+        return expenses;
+    }
+
+    // Each entry takes at least its length byte, so a size beyond the bytes left is corrupt.
+    private static String[] readDictionary(BlockReader reader) throws IOException {
+        long size = reader.readVarLong();
+        if (size < 0 || size > reader.remaining()) {
+            throw new IOException("Dictionary size out of range: " + size);
+        }
+        String[] values = new String[(int) size];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.readString();
+        }
+        return values;
+    }
+
+    private static final class BlockBuffer {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length);
+            ensureCapacity(encoded.length);
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class BlockReader {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        BlockReader(byte[] bytes, int limit) {
+            this.bytes = bytes;
+            this.limit = limit;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IOException("Truncated block");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        int readIndex(int bound) throws IOException {
+            long index = readVarLong();
+            if (index < 0 || index >= bound) {
+                throw new IOException("Dictionary index out of range: " + index);
+            }
+            return (int) index;
+        }
+
+        String readString() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > limit - position) {
+                throw new IOException("Truncated block");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CategoryDictionary {
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public int intern(String category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+        String key = normalize(category);
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = names.size();
+            ids.put(key, id);
+            names.add(key);
+        }
+        return id;
+    }
+
+    public int lookup(String category) {
+        if (category == null) {
+            return UNKNOWN;
+        }
+        Integer id = ids.get(normalize(category));
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= names.size()) {
+            throw new IllegalArgumentException("Unknown category ID: " + id);
+        }
+        return names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // The one case-insensitive key for a category, shared by every index and cache. Folding
+    // each code point through upper then lower case agrees with String.equalsIgnoreCase, which
+    // a whole-string toLowerCase does not for characters such as U+0130.
+    static String normalize(String category) {
+        int length = category.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = category.codePointAt(i);
+            if (fold(codePoint) != codePoint) {
+                break;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (i == length) {
+            return category;
+        }
+        StringBuilder key = new StringBuilder(length).append(category, 0, i);
+        while (i < length) {
+            int codePoint = category.codePointAt(i);
+            key.appendCodePoint(fold(codePoint));
+            i += Character.charCount(codePoint);
+        }
+        return key.toString();
+    }
+
+    // True when category has the given normalized key, without building a key for category.
+    static boolean sameCategory(String key, String category) {
+        return key.equalsIgnoreCase(category);
+    }
+
+    private static int fold(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+}
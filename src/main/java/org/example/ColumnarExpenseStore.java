@@ -0,0 +1,237 @@
+package org.example;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public class ColumnarExpenseStore implements ExpenseStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_COMPACTION_ROWS = 1024;
+
+    private String[] expenseIds = new String[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] amountsInCents = new long[INITIAL_CAPACITY];
+    private int[] userIds = new int[INITIAL_CAPACITY];
+    private int[] categoryIds = new int[INITIAL_CAPACITY];
+    private int[] categoryLabels = new int[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    private int rowCount;
+    private int deletedCount;
+
+    private final Map<String, Integer> rowsById = new HashMap<>();
+    private final Map<String, Integer> userIdsByName = new HashMap<>();
+    private final List<String> userNames = new ArrayList<>();
+    private final List<IntList> rowsByUser = new ArrayList<>();
+    private final CategoryDictionary categories = new CategoryDictionary();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    @Override
+    public void add(Expense expense) {
+        if (rowsById.containsKey(expense.getId())) {
+            throw new IllegalArgumentException("Expense with ID " + expense.getId() + " already exists");
+        }
+        ensureCapacity(rowCount + 1);
+        appendRow(expense);
+    }
+
+    // Grows the columns once for the whole batch.
+    @Override
+    public List<Expense> addAll(List<Expense> expenses) {
+        ensureCapacity(rowCount + expenses.size());
+        List<Expense> duplicates = new ArrayList<>();
+        for (Expense expense : expenses) {
+            if (rowsById.containsKey(expense.getId())) {
+                duplicates.add(expense);
+            } else {
+                appendRow(expense);
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public Expense remove(String expenseId) {
+        Integer row = rowsById.remove(expenseId);
+        if (row == null) {
+            return null;
+        }
+        Expense expense = materialize(row);
+        rowsByUser.get(userIds[row]).removeSorted(row);
+        deleted.set(row);
+        expenseIds[row] = null;
+        deletedCount++;
+        if (rowCount >= MIN_COMPACTION_ROWS && deletedCount * 2 > rowCount) {
+            compact();
+        }
+        return expense;
+    }
+
+    @Override
+    public Expense get(String expenseId) {
+        Integer row = rowsById.get(expenseId);
+        return row == null ? null : materialize(row);
+    }
+
+    @Override
+    public List<Expense> findByUser(String userId) {
+        IntList rows = rowsOf(userId);
+        List<Expense> result = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            result.add(materialize(rows.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Expense> findByCategory(String userId, String category) {
+        IntList rows = rowsOf(userId);
+        int categoryId = categories.lookup(category);
+        List<Expense> result = new ArrayList<>();
+        if (categoryId == CategoryDictionary.UNKNOWN) {
+            return result;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (categoryIds[row] == categoryId) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Expense> findByDateRange(String userId, long startTime, long endTime) {
+        IntList rows = rowsOf(userId);
+        List<Expense> result = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            long timestamp = timestamps[row];
+            if (timestamp >= startTime && timestamp <= endTime) {
+                result.add(materialize(row));
+            }
+        }
+        result.sort(Comparator.comparingLong(Expense::getTimestamp).thenComparing(Expense::getId));
+        return result;
+    }
+
+    @Override
+    public long[] amountsInCents(String userId) {
+        IntList rows = rowsOf(userId);
+        long[] amounts = new long[rows.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = amountsInCents[rows.get(i)];
+        }
+        return amounts;
+    }
+
+    @Override
+    public int userCount() {
+        int users = 0;
+        for (IntList rows : rowsByUser) {
+            if (!rows.isEmpty()) {
+                users++;
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public int size() {
+        return rowCount - deletedCount;
+    }
+
+    @Override
+    public void forEach(Consumer<Expense> action) {
+        for (int row = 0; row < rowCount; row++) {
+            if (!deleted.get(row)) {
+                action.accept(materialize(row));
+            }
+        }
+    }
+
+    private IntList rowsOf(String userId) {
+        Integer id = userIdsByName.get(userId);
+        return id == null ? new IntList(1) : rowsByUser.get(id);
+    }
+
+    private Expense materialize(int row) {
+        return Expense.ofCents(expenseIds[row], userNames.get(userIds[row]), labels.get(categoryLabels[row]),
+                amountsInCents[row], new Date(timestamps[row]));
+    }
+
+    private int internUser(String userId) {
+        Integer id = userIdsByName.get(userId);
+        if (id == null) {
+            id = userNames.size();
+            userIdsByName.put(userId, id);
+            userNames.add(userId);
+            rowsByUser.add(new IntList());
+        }
+        return id;
+    }
+
+    private int internLabel(String category) {
+        Integer id = labelIds.get(category);
+        if (id == null) {
+            id = labels.size();
+            labelIds.put(category, id);
+            labels.add(category);
+        }
+        return id;
+    }
+
+    private void appendRow(Expense expense) {
+        int row = rowCount++;
+        int userId = internUser(expense.getUserId());
+        expenseIds[row] = expense.getId();
+        timestamps[row] = expense.getTimestamp();
+        amountsInCents[row] = expense.getAmountInCents();
+        userIds[row] = userId;
+        categoryIds[row] = categories.intern(expense.getCategory());
+        categoryLabels[row] = internLabel(expense.getCategory());
+        rowsById.put(expense.getId(), row);
+        rowsByUser.get(userId).add(row);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= expenseIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, expenseIds.length * 2);
+        expenseIds = Arrays.copyOf(expenseIds, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        amountsInCents = Arrays.copyOf(amountsInCents, newCapacity);
+        userIds = Arrays.copyOf(userIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        categoryLabels = Arrays.copyOf(categoryLabels, newCapacity);
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (deleted.get(row)) {
+                continue;
+            }
+            expenseIds[live] = expenseIds[row];
+            timestamps[live] = timestamps[row];
+            amountsInCents[live] = amountsInCents[row];
+            userIds[live] = userIds[row];
+            categoryIds[live] = categoryIds[row];
+            categoryLabels[live] = categoryLabels[row];
+            live++;
+        }
+        Arrays.fill(expenseIds, live, rowCount, null);
+        rowCount = live;
+        deletedCount = 0;
+        deleted.clear();
+
+        rowsById.clear();
+        for (int i = 0; i < rowsByUser.size(); i++) {
+            rowsByUser.set(i, new IntList());
+        }
+        for (int row = 0; row < rowCount; row++) {
+            rowsById.put(expenseIds[row], row);
+            rowsByUser.get(userIds[row]).add(row);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConcurrentExpenseStore implements ExpenseStore {
+    private static final int QUERY_BATCH_ROWS = 1024;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final ConcurrentMap<String, String> ownersById = new ConcurrentHashMap<>();
+
+    public ConcurrentExpenseStore() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ConcurrentExpenseStore(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        int size = Integer.highestOneBit(shardCount - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        shardMask = size - 1;
+    }
+
+    @Override
+    public void add(Expense expense) {
+        if (ownersById.putIfAbsent(expense.getId(), expense.getUserId()) != null) {
+            throw new IllegalArgumentException("Expense with ID " + expense.getId() + " already exists");
+        }
+        Shard shard = shardFor(expense.getUserId());
+        Lock lock = shard.lock.writeLock();
+        lock.lock();
+        try {
+            shard.store.add(expense);
+        } catch (RuntimeException e) {
+            ownersById.remove(expense.getId());
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Claims IDs up front, then takes each shard's write lock once for its share of the batch.
+    @Override
+    public List<Expense> addAll(List<Expense> expenses) {
+        List<Expense> duplicates = new ArrayList<>();
+        List<List<Expense>> batches = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (Expense expense : expenses) {
+            if (ownersById.putIfAbsent(expense.getId(), expense.getUserId()) != null) {
+                duplicates.add(expense);
+            } else {
+                batches.get(shardIndex(expense.getUserId())).add(expense);
+            }
+        }
+        for (int i = 0; i < shards.length; i++) {
+            List<Expense> batch = batches.get(i);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            Lock lock = shards[i].lock.writeLock();
+            lock.lock();
+            try {
+                shards[i].store.addAll(batch);
+            } catch (RuntimeException e) {
+                for (int j = i; j < shards.length; j++) {
+                    for (Expense unclaimed : batches.get(j)) {
+                        ownersById.remove(unclaimed.getId());
+                    }
+                }
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public Expense remove(String expenseId) {
+        String userId = ownersById.get(expenseId);
+        if (userId == null) {
+            return null;
+        }
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.writeLock();
+        lock.lock();
+        try {
+            Expense removed = shard.store.remove(expenseId);
+            if (removed != null) {
+                ownersById.remove(expenseId);
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Expense get(String expenseId) {
+        String userId = ownersById.get(expenseId);
+        if (userId == null) {
+            return null;
+        }
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.get(expenseId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Expense> findByUser(String userId) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.findByUser(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Expense> findByCategory(String userId, String category) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.findByCategory(userId, category);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Expense> findByDateRange(String userId, long startTime, long endTime) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.findByDateRange(userId, startTime, endTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Expense> findPage(String userId, String category, long startTime, long endTime,
+                                  long afterTime, String afterId, int limit) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.findPage(userId, category, startTime, endTime, afterTime, afterId, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Date-ordered queries are read in keyset pages, each under the read lock. Other orders
+    // sort every match anyway, so the shard's lazy plan is drained under the read lock.
+    @Override
+    public Stream<Expense> query(ExpenseQuery query) {
+        if (query.pageable()) {
+            return query.inPages(this, QUERY_BATCH_ROWS);
+        }
+        Shard shard = shardFor(query.getUserId());
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.query(query).collect(Collectors.toList()).stream();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Expense> findByAmount(String userId, boolean descending, int offset, int limit) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.findByAmount(userId, descending, offset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long[] amountsInCents(String userId) {
+        Shard shard = shardFor(userId);
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return shard.store.amountsInCents(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Users never span shards, so per-shard counts add up.
+    @Override
+    public int userCount() {
+        int users = 0;
+        for (Shard shard : shards) {
+            Lock lock = shard.lock.readLock();
+            lock.lock();
+            try {
+                users += shard.store.userCount();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            Lock lock = shard.lock.readLock();
+            lock.lock();
+            try {
+                size += shard.store.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<Expense> action) {
+        for (Shard shard : shards) {
+            Lock lock = shard.lock.readLock();
+            lock.lock();
+            try {
+                shard.store.forEach(action);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private Shard shardFor(String userId) {
+        return shards[shardIndex(userId)];
+    }
+
+    private int shardIndex(String userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & shardMask;
+    }
+
+    private static final class Shard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IndexedExpenseStore store = new IndexedExpenseStore();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+// Renders "yyyy-MM-dd HH:mm:ss" like SimpleDateFormat, but is safe to share between threads.
+class DateRenderer {
+    static final int MAX_LENGTH = 32;
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final int PREFIX_LENGTH = 11; // "yyyy-MM-dd "
+    private static final int CACHE_SIZE = 1024;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Proleptic Gregorian arithmetic matches SimpleDateFormat from 1583 up to year 9999.
+    private static final long MIN_FAST_MILLIS = -12_212_553_600_000L; // 1583-01-01T00:00:00Z
+    private static final long MAX_FAST_MILLIS = 253_402_300_799_999L; // 9999-12-31T23:59:59.999Z
+
+    private final TimeZone timeZone;
+    // Racy but safe: entries are immutable, so a thread sees either a whole entry or a stale slot.
+    private final DayPrefix[] prefixes = new DayPrefix[CACHE_SIZE];
+
+    DateRenderer() {
+        this(TimeZone.getDefault());
+    }
+
+    DateRenderer(TimeZone timeZone) {
+        this.timeZone = (TimeZone) timeZone.clone();
+    }
+
+    String format(long millis) {
+        byte[] bytes = new byte[MAX_LENGTH];
+        int length = render(millis, bytes, 0);
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    int render(long millis, byte[] target, int offset) {
+        if (millis < MIN_FAST_MILLIS || millis > MAX_FAST_MILLIS) {
+            return renderSlow(millis, target, offset);
+        }
+        long local = millis + timeZone.getOffset(millis);
+        long day = Math.floorDiv(local, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+
+        int slot = (int) (day & (CACHE_SIZE - 1));
+        DayPrefix prefix = prefixes[slot];
+        if (prefix == null || prefix.day != day) {
+            prefix = new DayPrefix(day);
+            prefixes[slot] = prefix;
+        }
+        System.arraycopy(prefix.bytes, 0, target, offset, PREFIX_LENGTH);
+        int position = offset + PREFIX_LENGTH;
+        position = putTwoDigits(secondOfDay / 3600, target, position);
+        target[position++] = ':';
+        position = putTwoDigits(secondOfDay / 60 % 60, target, position);
+        target[position++] = ':';
+        position = putTwoDigits(secondOfDay % 60, target, position);
+        return position - offset;
+    }
+
+    private int renderSlow(long millis, byte[] target, int offset) {
+        SimpleDateFormat formatter = new SimpleDateFormat(PATTERN);
+        formatter.setTimeZone(timeZone);
+        byte[] bytes = formatter.format(new Date(millis)).getBytes(StandardCharsets.US_ASCII);
+        int length = Math.min(bytes.length, MAX_LENGTH);
+        System.arraycopy(bytes, 0, target, offset, length);
+        return length;
+    }
+
+    private static int putTwoDigits(int value, byte[] target, int position) {
+        target[position] = (byte) ('0' + value / 10);
+        target[position + 1] = (byte) ('0' + value % 10);
+        return position + 2;
+    }
+
+    private static final class DayPrefix {
+        private final long day;
+        private final byte[] bytes = new byte[PREFIX_LENGTH];
+
+        DayPrefix(long day) {
+            this.day = day;
+            // Days-from-civil inverse (H. Hinnant), valid for the proleptic Gregorian calendar.
+            long z = day + 719_468;
+            long era = Math.floorDiv(z, 146_097);
+            long dayOfEra = z - era * 146_097;
+            long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long mp = (5 * dayOfYear + 2) / 153;
+            int dayOfMonth = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+            int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+            int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+            bytes[0] = (byte) ('0' + year / 1000 % 10);
+            bytes[1] = (byte) ('0' + year / 100 % 10);
+            putTwoDigits(year % 100, bytes, 2);
+            bytes[4] = '-';
+            putTwoDigits(month, bytes, 5);
+            bytes[7] = '-';
+            putTwoDigits(dayOfMonth, bytes, 8);
+            bytes[10] = ' ';
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Reads files written by DelimitedExpenseWriter. The file is mapped in chunks; a chunk owns
+// every record that starts inside it, so chunks can be parsed independently and are then
+// committed to the target in file order. A CSV record ends at the first newline outside a
+// quoted field, which a chunk cannot see from its own bytes, so each chunk guesses that its
+// first newline ends a record and commit() reparses it when the previous chunk ended
+// somewhere else. Single use: one instance per import.
+class DelimitedExpenseImporter {
+    static final int DEFAULT_CHUNK_BYTES = 1 << 23;
+    static final int MAX_LINE_BYTES = 1 << 20;
+    private static final int FIELD_COUNT = 5;
+    private static final int DATE_LENGTH = 19; // "yyyy-MM-dd HH:mm:ss"
+
+    private final ExportFormat format;
+    private final ZoneId zone;
+    private final int chunkBytes;
+
+    private final List<ImportReport.RowError> errors = new ArrayList<>();
+    private long imported;
+    private long rejected;
+    private long linesBefore;
+    private long nextRecordStart;
+
+    DelimitedExpenseImporter(ExportFormat format, TimeZone timeZone, int chunkBytes) {
+        this.format = format;
+        this.zone = timeZone.toZoneId();
+        this.chunkBytes = chunkBytes;
+    }
+
+    ImportReport importFile(Path path, ExpenseManager target, ExecutorService executor, int maxChunksInFlight)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            try {
+                for (long start = 0; start < size; start += chunkBytes) {
+                    long from = start;
+                    long to = Math.min(size, start + chunkBytes);
+                    inFlight.add(executor.submit(() -> parseChunk(channel, size, from, to, from == 0 ? 0 : -1)));
+                    if (inFlight.size() >= maxChunksInFlight) {
+                        commit(await(inFlight.poll()), target, channel, size);
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    commit(await(inFlight.poll()), target, channel, size);
+                }
+            } finally {
+                for (Future<Chunk> pending : inFlight) {
+                    pending.cancel(true);
+                }
+            }
+        }
+        return new ImportReport(imported, rejected, errors);
+    }
+
+    // Parses the records starting in [from, to). A negative recordStart means the first record
+    // is not known yet and is taken to start after the first newline from the byte before the chunk.
+    private Chunk parseChunk(FileChannel channel, long size, long from, long to, long recordStart) {
+        long windowStart = Math.max(0, from - 1);
+        long windowEnd = Math.min(size, to + MAX_LINE_BYTES);
+        MappedByteBuffer window;
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Chunk chunk = new Chunk(from, to);
+        int limit = window.limit();
+        int end = (int) (to - windowStart);
+        int position;
+        if (recordStart >= 0) {
+            position = (int) (recordStart - windowStart);
+        } else {
+            // The byte before the chunk tells whether a line starts exactly at its first byte.
+            int newline = indexOfNewline(window, 0, limit);
+            if (newline < 0) {
+                return chunk;
+            }
+            position = newline + 1;
+        }
+        chunk.firstRecordStart = windowStart + position;
+        LineParser parser = new LineParser();
+        while (position < end) {
+            int newline = parser.indexOfRecordEnd(window, position, limit);
+            if (newline < 0 && windowEnd < size) {
+                chunk.reject(chunk.lines++, "Line exceeds " + MAX_LINE_BYTES + " bytes");
+                return chunk;
+            }
+            int lineEnd = newline < 0 ? limit : newline;
+            parser.parse(window, position, lineEnd, windowStart + position == 0, chunk);
+            chunk.lines += 1 + parser.embeddedNewlines;
+            position = lineEnd + 1;
+        }
+        chunk.nextRecordStart = windowStart + position;
+        return chunk;
+    }
+
+    private void commit(Chunk chunk, ExpenseManager target, FileChannel channel, long size) throws IOException {
+        if (nextRecordStart >= chunk.to) {
+            // A quoted field runs past the whole chunk, so no record starts inside it.
+            return;
+        }
+        if (nextRecordStart >= 0 && chunk.firstRecordStart != nextRecordStart) {
+            // The chunk's first newline was inside a quoted field; parse again from the real start.
+            try {
+                chunk = parseChunk(channel, size, chunk.from, chunk.to, nextRecordStart);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        nextRecordStart = chunk.nextRecordStart;
+        List<ImportReport.RowError> refused = addRows(chunk, target);
+        // Merge the target's rejections into the parse errors so they stay in line order.
+        int nextError = 0;
+        for (ImportReport.RowError rowError : refused) {
+            while (nextError < chunk.errors.size() && chunk.errors.get(nextError).getLine() < rowError.getLine()) {
+                record(chunk.errors.get(nextError++));
+            }
+            record(rowError);
+        }
+        while (nextError < chunk.errors.size()) {
+            record(chunk.errors.get(nextError++));
+        }
+        imported += chunk.rows.size() - refused.size();
+        rejected += chunk.malformed + refused.size();
+        linesBefore += chunk.lines;
+    }
+
+    // Returns an error, in row order, for every row of the chunk the target did not take.
+    private static List<ImportReport.RowError> addRows(Chunk chunk, ExpenseManager target) {
+        List<ImportReport.RowError> refused = new ArrayList<>();
+        try {
+            List<Expense> duplicates = target.addAll(chunk.rows);
+            int nextDuplicate = 0;
+            for (int i = 0; i < chunk.rows.size() && nextDuplicate < duplicates.size(); i++) {
+                if (duplicates.get(nextDuplicate) == chunk.rows.get(i)) {
+                    nextDuplicate++;
+                    refused.add(duplicate(chunk.rowLines.get(i), chunk.rows.get(i)));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // The store refused a row it cannot hold and wrote none of the chunk; add the rows one
+            // at a time so only the bad ones are rejected.
+            for (int i = 0; i < chunk.rows.size(); i++) {
+                Expense expense = chunk.rows.get(i);
+                try {
+                    if (!target.addAll(Collections.singletonList(expense)).isEmpty()) {
+                        refused.add(duplicate(chunk.rowLines.get(i), expense));
+                    }
+                } catch (IllegalArgumentException rowFailure) {
+                    refused.add(new ImportReport.RowError(chunk.rowLines.get(i), rowFailure.getMessage()));
+                }
+            }
+        }
+        return refused;
+    }
+
+    private static ImportReport.RowError duplicate(int line, Expense expense) {
+        return new ImportReport.RowError(line, "Expense with ID " + expense.getId() + " already exists");
+    }
+
+    private void record(ImportReport.RowError chunkError) {
+        if (errors.size() < ImportReport.MAX_RECORDED_ERRORS) {
+            errors.add(new ImportReport.RowError(linesBefore + chunkError.getLine() + 1, chunkError.getMessage()));
+        }
+    }
+
+    private static Chunk await(Future<Chunk> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Import chunk failed", e.getCause());
+        }
+    }
+
+    private static int indexOfNewline(MappedByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final class Chunk {
+        private final long from;
+        private final long to;
+        private final List<Expense> rows = new ArrayList<>();
+        private final IntList rowLines = new IntList();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long malformed;
+        private int lines;
+        // File offsets of the first record parsed and of the record after the last one; -1 if unknown.
+        private long firstRecordStart = -1;
+        private long nextRecordStart = -1;
+
+        Chunk(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void accept(int line, Expense expense) {
+            rows.add(expense);
+            rowLines.add(line);
+        }
+
+        void reject(int line, String message) {
+            malformed++;
+            if (errors.size() < ImportReport.MAX_RECORDED_ERRORS) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+    }
+
+    // Applies the same checks as the Expense constructor; a failing line is reported, not thrown.
+    private final class LineParser {
+        private final String[] fields = new String[FIELD_COUNT];
+        private byte[] line = new byte[256];
+        private byte[] field = new byte[256];
+        private int embeddedNewlines;
+
+        // Index of the newline ending the record that starts at from, or -1 if the window ends
+        // first. In CSV a newline inside a quoted field belongs to the record; such newlines are
+        // counted so that errors keep reporting physical line numbers.
+        int indexOfRecordEnd(MappedByteBuffer window, int from, int limit) {
+            embeddedNewlines = 0;
+            if (format != ExportFormat.CSV) {
+                return indexOfNewline(window, from, limit);
+            }
+            byte separator = format.separator();
+            boolean fieldStart = true;
+            boolean quotedField = false;
+            boolean inQuotes = false;
+            for (int i = from; i < limit; i++) {
+                byte b = window.get(i);
+                if (inQuotes) {
+                    if (b == '"') {
+                        inQuotes = false;
+                    } else if (b == '\n') {
+                        embeddedNewlines++;
+                    }
+                    continue;
+                }
+                if (b == '\n') {
+                    return i;
+                }
+                // A doubled quote closes and reopens the field, which leaves it open.
+                if (b == '"' && (fieldStart || quotedField)) {
+                    quotedField = true;
+                    inQuotes = true;
+                }
+                fieldStart = b == separator;
+                if (fieldStart) {
+                    quotedField = false;
+                }
+            }
+            return -1;
+        }
+
+        void parse(MappedByteBuffer window, int start, int end, boolean firstLineOfFile, Chunk chunk) {
+            int length = end - start;
+            if (length > 0 && window.get(end - 1) == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                return;
+            }
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+                field = new byte[line.length];
+            }
+            for (int i = 0; i < length; i++) {
+                line[i] = window.get(start + i);
+            }
+            String error = split(length);
+            if (error != null) {
+                chunk.reject(chunk.lines, error);
+                return;
+            }
+            if (firstLineOfFile && "id".equals(fields[0]) && "amount".equals(fields[3])) {
+                return;
+            }
+            try {
+                long timestamp = parseDate(fields[4]);
+                long cents = parseCents(fields[3]);
+                Expense expense = cents >= 0
+                        ? Expense.ofCents(fields[0], fields[1], fields[2], cents, new Date(timestamp))
+                        : new Expense(fields[0], fields[1], fields[2], parseAmount(fields[3]), new Date(timestamp));
+                chunk.accept(chunk.lines, expense);
+            } catch (IllegalArgumentException e) {
+                chunk.reject(chunk.lines, e.getMessage());
+            }
+        }
+
+        private String split(int length) {
+            byte separator = format.separator();
+            int count = 0;
+            int i = 0;
+            while (true) {
+                int size = 0;
+                if (format == ExportFormat.CSV && i < length && line[i] == '"') {
+                    i++;
+                    while (true) {
+                        if (i >= length) {
+                            return "Unterminated quoted field";
+                        }
+                        if (line[i] == '"') {
+                            if (i + 1 < length && line[i + 1] == '"') {
+                                field[size++] = '"';
+                                i += 2;
+                                continue;
+                            }
+                            i++;
+                            break;
+                        }
+                        field[size++] = line[i++];
+                    }
+                    if (i < length && line[i] != separator) {
+                        return "Unexpected character after quoted field";
+                    }
+                } else {
+                    while (i < length && line[i] != separator) {
+                        if (format == ExportFormat.TSV && line[i] == '\\' && i + 1 < length) {
+                            field[size++] = unescape(line[i + 1]);
+                            i += 2;
+                        } else {
+                            field[size++] = line[i++];
+                        }
+                    }
+                }
+                if (count < FIELD_COUNT) {
+                    fields[count] = new String(field, 0, size, StandardCharsets.UTF_8);
+                }
+                count++;
+                if (i >= length) {
+                    break;
+                }
+                i++;
+            }
+            return count == FIELD_COUNT ? null : "Expected " + FIELD_COUNT + " fields but found " + count;
+        }
+
+        private byte unescape(byte escaped) {
+            switch (escaped) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                default:
+                    return escaped;
+            }
+        }
+
+        // Exact cents for plain "123", "123.4" or "123.45"; -1 sends anything else through double,
+        // where the Expense constructor rejects amounts that round below one cent, such as "0.001".
+        private long parseCents(String text) {
+            int length = text.length();
+            int i = 0;
+            long whole = 0;
+            while (i < length && i < 16 && isDigit(text.charAt(i))) {
+                whole = whole * 10 + (text.charAt(i++) - '0');
+            }
+            if (i == 0) {
+                return -1;
+            }
+            long cents = whole * 100;
+            if (i == length) {
+                return cents;
+            }
+            if (text.charAt(i++) != '.') {
+                return -1;
+            }
+            for (int scale = 10; scale > 0 && i < length; scale /= 10) {
+                char c = text.charAt(i++);
+                if (!isDigit(c)) {
+                    return -1;
+                }
+                cents += (c - '0') * scale;
+            }
+            return i == length ? cents : -1;
+        }
+
+        private double parseAmount(String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid amount: " + text);
+            }
+        }
+
+        private long parseDate(String text) {
+            if (text.length() != DATE_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-'
+                    || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+                throw new IllegalArgumentException("Invalid date: " + text);
+            }
+            try {
+                return LocalDateTime.of(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                        digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2))
+                        .atZone(zone).toInstant().toEpochMilli();
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Invalid date: " + text);
+            }
+        }
+
+        private int digits(String text, int offset, int count) {
+            int value = 0;
+            for (int i = offset; i < offset + count; i++) {
+                char c = text.charAt(i);
+                if (!isDigit(c)) {
+                    throw new IllegalArgumentException("Invalid date: " + text);
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+class DelimitedExpenseWriter {
+    static final int BUFFER_BYTES = 1 << 16;
+    private static final String[] HEADER = {"id", "userId", "category", "amount", "date"};
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final DateRenderer dateRenderer;
+    private final byte[] dateBytes = new byte[DateRenderer.MAX_LENGTH];
+
+    DelimitedExpenseWriter(WritableByteChannel channel, ExportFormat format, DateRenderer dateRenderer) {
+        this.channel = channel;
+        this.format = format;
+        this.dateRenderer = dateRenderer;
+    }
+
+    void writeHeader() throws IOException {
+        for (int i = 0; i < HEADER.length; i++) {
+            if (i > 0) {
+                put(format.separator());
+            }
+            writeAscii(HEADER[i]);
+        }
+        put((byte) '\n');
+    }
+
+    void writeRow(Expense expense) throws IOException {
+        writeText(expense.getId());
+        put(format.separator());
+        writeText(expense.getUserId());
+        put(format.separator());
+        writeText(expense.getCategory());
+        put(format.separator());
+        writeCents(expense.getAmountInCents());
+        put(format.separator());
+        writeDate(expense.getTimestamp());
+        put((byte) '\n');
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeText(String value) throws IOException {
+        if (format == ExportFormat.CSV && needsQuoting(value)) {
+            put((byte) '"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    put((byte) '"');
+                }
+                putChar(value, i, c);
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                    i++;
+                }
+            }
+            put((byte) '"');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (format == ExportFormat.TSV && (c == '\t' || c == '\n' || c == '\r' || c == '\\')) {
+                put((byte) '\\');
+                put((byte) (c == '\t' ? 't' : c == '\n' ? 'n' : c == '\r' ? 'r' : '\\'));
+                continue;
+            }
+            putChar(value, i, c);
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                i++;
+            }
+        }
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Encodes one UTF-16 unit (or surrogate pair starting at index) as UTF-8.
+    private void putChar(String value, int index, char c) throws IOException {
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | (c >> 6)));
+            put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            put((byte) (0xF0 | (codePoint >> 18)));
+            put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xE0 | (c >> 12)));
+            put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    private void writeCents(long cents) throws IOException {
+        writeLong(cents / 100);
+        put((byte) '.');
+        long fraction = cents % 100;
+        put((byte) ('0' + fraction / 10));
+        put((byte) ('0' + fraction % 10));
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value < 10) {
+            put((byte) ('0' + value));
+            return;
+        }
+        writeLong(value / 10);
+        put((byte) ('0' + value % 10));
+    }
+
+    private void writeDate(long millis) throws IOException {
+        int length = dateRenderer.render(millis, dateBytes, 0);
+        for (int i = 0; i < length; i++) {
+            put(dateBytes[i]);
+        }
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+}
@@ -0,0 +1,527 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+public class DurableExpenseStore implements ExpenseStore, Closeable {
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+
+    private static final int SNAPSHOT_MAGIC = 0x45585053; // "EXPS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int STREAM_BUFFER_BYTES = 1 << 16;
+    private static final int REPLAY_BATCH_ROWS = 4096;
+    private static final int QUERY_BATCH_ROWS = 1024;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final ExpenseStore delegate;
+    private final Path directory;
+    private final long groupCommitMillis;
+    private final ScheduledExecutorService snapshotExecutor;
+    private final long recoveryMillis;
+
+    // A snapshot named N holds every change logged in segments below N.
+    private WriteAheadLog log;
+    private long activeSegment;
+    private final AtomicLong snapshotFailures = new AtomicLong();
+    // Changes the active log has accepted but not yet synced, oldest first. If a sync fails they
+    // are undone newest first, and the store refuses further writes.
+    private final ArrayDeque<Unsynced> unsynced = new ArrayDeque<>();
+    private UncheckedIOException logFailure;
+
+    public DurableExpenseStore(ExpenseStore delegate, Path directory, long groupCommitMillis) throws IOException {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate store cannot be null");
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("Data directory cannot be null");
+        }
+        long start = System.nanoTime();
+        this.delegate = delegate;
+        this.directory = Files.createDirectories(directory);
+        this.groupCommitMillis = groupCommitMillis;
+        recover();
+        this.recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expense-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void validate(Expense expense) {
+        delegate.validate(expense);
+    }
+
+    // The delegate validates and applies the change first; if the log then refuses the record,
+    // the change is undone before the lock is released, so readers never see a row the log lacks.
+    // A change the log accepts but then fails to sync is undone by rollBackUnsynced.
+    @Override
+    public void add(Expense expense) {
+        WriteAheadLog current;
+        long sequence;
+        synchronized (this) {
+            checkWritable();
+            delegate.add(expense);
+            current = log;
+            try {
+                sequence = current.append(encodeAdd(expense));
+            } catch (RuntimeException e) {
+                delegate.remove(expense.getId());
+                throw e;
+            }
+            track(current, sequence, () -> delegate.remove(expense.getId()));
+        }
+        awaitDurable(current, sequence);
+    }
+
+    // The accepted rows are logged together and the caller waits for a single sync.
+    @Override
+    public List<Expense> addAll(List<Expense> expenses) {
+        List<Expense> duplicates;
+        WriteAheadLog current;
+        long sequence;
+        synchronized (this) {
+            checkWritable();
+            duplicates = delegate.addAll(expenses);
+            List<byte[]> records = new ArrayList<>(expenses.size() - duplicates.size());
+            int nextDuplicate = 0;
+            for (Expense expense : expenses) {
+                if (nextDuplicate < duplicates.size() && duplicates.get(nextDuplicate) == expense) {
+                    nextDuplicate++;
+                } else {
+                    records.add(encodeAdd(expense));
+                }
+            }
+            if (records.isEmpty()) {
+                return duplicates;
+            }
+            current = log;
+            try {
+                sequence = current.appendAll(records);
+            } catch (RuntimeException e) {
+                undoAdds(expenses, duplicates);
+                throw e;
+            }
+            track(current, sequence, () -> undoAdds(expenses, duplicates));
+        }
+        awaitDurable(current, sequence);
+        return duplicates;
+    }
+
+    @Override
+    public Expense remove(String expenseId) {
+        Expense removed;
+        WriteAheadLog current;
+        long sequence;
+        synchronized (this) {
+            checkWritable();
+            removed = delegate.remove(expenseId);
+            if (removed == null) {
+                return null;
+            }
+            current = log;
+            try {
+                sequence = current.append(encodeRemove(expenseId));
+            } catch (RuntimeException e) {
+                delegate.add(removed);
+                throw e;
+            }
+            track(current, sequence, () -> delegate.add(removed));
+        }
+        awaitDurable(current, sequence);
+        return removed;
+    }
+
+    @Override
+    public synchronized Expense get(String expenseId) {
+        return delegate.get(expenseId);
+    }
+
+    @Override
+    public synchronized List<Expense> findByUser(String userId) {
+        return delegate.findByUser(userId);
+    }
+
+    @Override
+    public synchronized List<Expense> findByCategory(String userId, String category) {
+        return delegate.findByCategory(userId, category);
+    }
+
+    @Override
+    public synchronized List<Expense> findByDateRange(String userId, long startTime, long endTime) {
+        return delegate.findByDateRange(userId, startTime, endTime);
+    }
+
+    @Override
+    public synchronized List<Expense> findPage(String userId, String category, long startTime, long endTime,
+                                               long afterTime, String afterId, int limit) {
+        return delegate.findPage(userId, category, startTime, endTime, afterTime, afterId, limit);
+    }
+
+    // Date-ordered queries are read in keyset pages, each under the lock; other orders sort
+    // every match anyway, so the delegate's stream is drained under the lock.
+    @Override
+    public Stream<Expense> query(ExpenseQuery query) {
+        if (query.pageable()) {
+            return query.inPages(this, QUERY_BATCH_ROWS);
+        }
+        synchronized (this) {
+            return delegate.query(query).collect(Collectors.toList()).stream();
+        }
+    }
+
+    @Override
+    public synchronized List<Expense> findByAmount(String userId, boolean descending, int offset, int limit) {
+        return delegate.findByAmount(userId, descending, offset, limit);
+    }
+
+    @Override
+    public synchronized long[] amountsInCents(String userId) {
+        return delegate.amountsInCents(userId);
+    }
+
+    @Override
+    public synchronized int userCount() {
+        return delegate.userCount();
+    }
+
+    @Override
+    public synchronized int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<Expense> action) {
+        delegate.forEach(action);
+    }
+
+    public synchronized long getSyncCount() {
+        return log.getSyncCount();
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    // Writers are held up only while the log rolls and the row references are copied.
+    public Future<Path> snapshot() throws IOException {
+        Callable<Path> write = rollForSnapshot();
+        return snapshotExecutor.submit(write);
+    }
+
+    // A failed run is reported and counted, and the next run retries; an exception escaping the
+    // task would make the executor silently cancel every later run while the log keeps growing.
+    public void scheduleSnapshots(long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Snapshot period must be positive");
+        }
+        snapshotExecutor.scheduleAtFixedRate(() -> {
+            try {
+                rollForSnapshot().call();
+            } catch (Exception e) {
+                snapshotFailures.incrementAndGet();
+                System.err.println("Periodic snapshot of " + directory + " failed: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    public long getSnapshotFailureCount() {
+        return snapshotFailures.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    // The next segment is opened before the current one is closed, so a failure leaves the
+    // store writing to its current log.
+    private synchronized Callable<Path> rollForSnapshot() throws IOException {
+        long coveredSegment = activeSegment + 1;
+        WriteAheadLog next = openLog(segmentPath(coveredSegment), null);
+        log.close();
+        unsynced.clear(); // closing synced everything the old log held
+        log = next;
+        activeSegment = coveredSegment;
+        List<Expense> rows = new ArrayList<>(delegate.size());
+        delegate.forEach(rows::add);
+        return () -> writeSnapshot(rows, coveredSegment);
+    }
+
+    // Tests override this to inject I/O failures.
+    WriteAheadLog openLog(Path path, Consumer<ByteBuffer> replay) throws IOException {
+        return new WriteAheadLog(path, groupCommitMillis, replay);
+    }
+
+    private void checkWritable() {
+        if (logFailure != null) {
+            throw new IllegalStateException("Store is read-only after a write-ahead log failure", logFailure);
+        }
+    }
+
+    // Entries the log has since synced are dropped first, so the deque holds at most the
+    // changes of one group commit window.
+    private void track(WriteAheadLog current, long sequence, Runnable undo) {
+        long durable = current.getDurableSequence();
+        while (!unsynced.isEmpty() && unsynced.peekFirst().sequence <= durable) {
+            unsynced.pollFirst();
+        }
+        unsynced.addLast(new Unsynced(sequence, undo));
+    }
+
+    private void awaitDurable(WriteAheadLog current, long sequence) {
+        try {
+            current.awaitDurable(sequence);
+        } catch (UncheckedIOException e) {
+            rollBackUnsynced(current, e);
+            throw e;
+        }
+    }
+
+    // Every writer waiting on the failed sync gets here; the first one undoes all of their
+    // changes at once, newest first, so a remove of a row added in the same window is undone
+    // before the add.
+    private synchronized void rollBackUnsynced(WriteAheadLog failed, UncheckedIOException e) {
+        if (logFailure != null || failed != log) {
+            return;
+        }
+        logFailure = e;
+        long durable = failed.getDurableSequence();
+        while (!unsynced.isEmpty() && unsynced.peekLast().sequence > durable) {
+            unsynced.pollLast().undo.run();
+        }
+        unsynced.clear();
+    }
+
+    private static final class Unsynced {
+        final long sequence;
+        final Runnable undo;
+
+        Unsynced(long sequence, Runnable undo) {
+            this.sequence = sequence;
+            this.undo = undo;
+        }
+    }
+
+    private void undoAdds(List<Expense> expenses, List<Expense> duplicates) {
+        int nextDuplicate = 0;
+        for (Expense expense : expenses) {
+            if (nextDuplicate < duplicates.size() && duplicates.get(nextDuplicate) == expense) {
+                nextDuplicate++;
+            } else {
+                delegate.remove(expense.getId());
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        long latestSnapshot = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher segment = SEGMENT_NAME.matcher(name);
+                Matcher snapshot = SNAPSHOT_NAME.matcher(name);
+                if (segment.matches()) {
+                    segments.add(Long.parseLong(segment.group(1)));
+                } else if (snapshot.matches()) {
+                    latestSnapshot = Math.max(latestSnapshot, Long.parseLong(snapshot.group(1)));
+                } else if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        segments.sort(null);
+
+        long firstSegment = 0;
+        if (latestSnapshot >= 0) {
+            loadSnapshot(snapshotPath(latestSnapshot));
+            firstSegment = latestSnapshot;
+        }
+        activeSegment = firstSegment;
+        for (long segment : segments) {
+            if (segment >= firstSegment) {
+                activeSegment = segment;
+            }
+        }
+        Replay replay = new Replay();
+        for (long segment : segments) {
+            if (segment >= firstSegment && segment < activeSegment) {
+                WriteAheadLog.replay(segmentPath(segment), replay);
+            }
+        }
+        log = openLog(segmentPath(activeSegment), replay);
+        replay.flush();
+        deleteCoveredFiles(firstSegment);
+    }
+
+    private Path writeSnapshot(List<Expense> rows, long coveredSegment) throws IOException {
+        Path target = snapshotPath(coveredSegment);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(file, STREAM_BUFFER_BYTES);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(rows.size());
+            for (Expense expense : rows) {
+                out.writeUTF(expense.getId());
+                out.writeUTF(expense.getUserId());
+                out.writeUTF(expense.getCategory());
+                out.writeLong(expense.getAmountInCents());
+                out.writeLong(expense.getTimestamp());
+            }
+            out.flush();
+            new DataOutputStream(buffered).writeLong(checked.getChecksum().getValue());
+            buffered.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        deleteCoveredFiles(coveredSegment);
+        return target;
+    }
+
+    private void loadSnapshot(Path path) throws IOException {
+        try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER_BYTES)) {
+            CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not an expense snapshot: " + path);
+            }
+            int count = in.readInt();
+            List<Expense> batch = new ArrayList<>(Math.min(count, REPLAY_BATCH_ROWS));
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String userId = in.readUTF();
+                String category = in.readUTF();
+                long cents = in.readLong();
+                long timestamp = in.readLong();
+                batch.add(Expense.ofCents(id, userId, category, cents, new Date(timestamp)));
+                if (batch.size() == REPLAY_BATCH_ROWS) {
+                    delegate.addAll(batch);
+                    batch.clear();
+                }
+            }
+            delegate.addAll(batch);
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(buffered).readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+        }
+    }
+
+    private void deleteCoveredFiles(long coveredSegment) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher segment = SEGMENT_NAME.matcher(name);
+                Matcher snapshot = SNAPSHOT_NAME.matcher(name);
+                if ((segment.matches() && Long.parseLong(segment.group(1)) < coveredSegment)
+                        || (snapshot.matches() && Long.parseLong(snapshot.group(1)) < coveredSegment)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("wal-%010d.log", segment));
+    }
+
+    private Path snapshotPath(long segment) {
+        return directory.resolve(String.format("snapshot-%010d.bin", segment));
+    }
+
+    // Applies log records in order. Runs of adds go to the delegate through addAll; a remove
+    // first flushes the adds before it. Adds of IDs already present are skipped as duplicates.
+    private final class Replay implements Consumer<ByteBuffer> {
+        private final List<Expense> pendingAdds = new ArrayList<>();
+
+        @Override
+        public void accept(ByteBuffer record) {
+            try {
+                DataInputStream in = new DataInputStream(
+                        new ByteArrayInputStream(record.array(), record.position(), record.remaining()));
+                byte type = in.readByte();
+                String id = in.readUTF();
+                if (type == ADD) {
+                    String userId = in.readUTF();
+                    String category = in.readUTF();
+                    long cents = in.readLong();
+                    long timestamp = in.readLong();
+                    pendingAdds.add(Expense.ofCents(id, userId, category, cents, new Date(timestamp)));
+                    if (pendingAdds.size() == REPLAY_BATCH_ROWS) {
+                        flush();
+                    }
+                } else if (type == REMOVE) {
+                    flush();
+                    delegate.remove(id);
+                } else {
+                    throw new IllegalStateException("Unknown log record type: " + type);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Corrupt log record", e);
+            }
+        }
+
+        void flush() {
+            if (!pendingAdds.isEmpty()) {
+                delegate.addAll(pendingAdds);
+                pendingAdds.clear();
+            }
+        }
+    }
+
+    private static byte[] encodeAdd(Expense expense) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ADD);
+            out.writeUTF(expense.getId());
+            out.writeUTF(expense.getUserId());
+            out.writeUTF(expense.getCategory());
+            out.writeLong(expense.getAmountInCents());
+            out.writeLong(expense.getTimestamp());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemove(String expenseId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(REMOVE);
+            out.writeUTF(expenseId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
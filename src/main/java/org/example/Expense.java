@@ -4,26 +4,46 @@ import java.util.Date;
 import java.util.Objects;
 
 public class Expense {
+    private static final double MAX_AMOUNT = Long.MAX_VALUE / 100.0;
+
     private final String id;
     private final String userId;
     private final String category;
-    private final double amount;
+    private final long amountInCents;
     private final Date date;
 
     public Expense(String id, String userId, String category, double amount, Date date) {
+        this(id, userId, category, toCents(amount), date);
+    }
+
+    private Expense(String id, String userId, String category, long amountInCents, Date date) {
         if (id == null || id.trim().isEmpty()) throw new IllegalArgumentException("Expense ID cannot be null or empty");
         if (userId == null || userId.trim().isEmpty()) throw new IllegalArgumentException("User ID cannot be null or empty");
         if (category == null || category.trim().isEmpty()) throw new IllegalArgumentException("Category cannot be null or empty");
-        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
         if (date == null) throw new IllegalArgumentException("Date cannot be null");
 
         this.id = id.trim();
         this.userId = userId.trim();
         this.category = category.trim();
-        this.amount = Math.round(amount * 100.0) / 100.0;
+        this.amountInCents = amountInCents;
         this.date = new Date(date.getTime());
     }
 
+    // Rebuilds an expense from stored cents without a lossy round trip through double.
+    public static Expense ofCents(String id, String userId, String category, long amountInCents, Date date) {
+        if (amountInCents <= 0) throw new IllegalArgumentException("Amount must be positive");
+        return new Expense(id, userId, category, amountInCents, date);
+    }
+
+    private static long toCents(double amount) {
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (Double.isNaN(amount) || amount >= MAX_AMOUNT) throw new IllegalArgumentException("Amount is out of range");
+        long cents = Math.round(amount * 100.0);
+        // Would store 0 cents, which ofCents (and every store that rebuilds rows) rejects.
+        if (cents < 1) throw new IllegalArgumentException("Amount must be at least 0.01");
+        return cents;
+    }
+
     public String getId() {
         return id;
     }
@@ -37,19 +57,27 @@ public class Expense {
     }
 
     public double getAmount() {
-        return amount;
+        return amountInCents / 100.0;
+    }
+
+    public long getAmountInCents() {
+        return amountInCents;
     }
 
     public Date getDate() {
         return new Date(date.getTime());
     }
 
+    public long getTimestamp() {
+        return date.getTime();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Expense expense = (Expense) o;
-        return Double.compare(expense.amount, amount) == 0 &&
+        return expense.amountInCents == amountInCents &&
                 Objects.equals(id, expense.id) &&
                 Objects.equals(userId, expense.userId) &&
                 Objects.equals(category, expense.category) &&
@@ -58,12 +86,12 @@ public class Expense {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, userId, category, amount, date);
+        return Objects.hash(id, userId, category, amountInCents, date);
     }
 
     @Override
     public String toString() {
         return String.format("Expense{id='%s', userId='%s', category='%s', amount=%.2f, date=%s}",
-                id, userId, category, amount, date);
+                id, userId, category, getAmount(), date);
     }
 }
\ No newline at end of file
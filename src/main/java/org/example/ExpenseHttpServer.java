@@ -0,0 +1,486 @@
+package org.example;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// HTTP/JSON front end on the JDK's built-in server:
+//     POST   /expenses                   {"id","userId","category","amount","date":"yyyy-MM-dd"}
+//     GET    /expenses/{id}
+//     DELETE /expenses/{id}
+//     GET    /users/{user}/expenses      ?category&from&to&minAmount&maxAmount&limit&order
+//                                        or ?pageSize&cursor with category or from/to
+//     GET    /users/{user}/statistics
+//     GET    /users/{user}/export        same filters as /expenses, plus format=csv|tsv
+// Dates are whole days in the server's time zone and "to" includes its whole day. Result
+// sets and exports are streamed with chunked encoding in date order, which ConcurrentExpenseStore
+// and DurableExpenseStore read in fixed-size pages, so memory per request stays bounded;
+// connections are kept alive between requests. Requests run one per virtual thread where the
+// JDK has them, otherwise on a fixed pool. The expense manager must be safe for concurrent
+// use (for example backed by ConcurrentExpenseStore), and the statistics manager must be one
+// of its listeners for /statistics to reflect its contents; ExpenseManager delivers each ID's
+// events in the order the store applied them, so concurrent requests cannot leave it stale.
+// A response that fails after its headers were sent is cut off, never ended cleanly.
+public class ExpenseHttpServer implements Closeable {
+    static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_BACKLOG = 1024;
+    private static final int STREAM_BUFFER_CHARS = 16 * 1024;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ExpenseManager expenseManager;
+    private final StatisticsManager statisticsManager;
+    private final ExportManager exportManager;
+    private final ZoneId zone;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ExpenseHttpServer(ExpenseManager expenseManager, StatisticsManager statisticsManager,
+                             ExportManager exportManager, InetSocketAddress address) throws IOException {
+        this(expenseManager, statisticsManager, exportManager, address, DEFAULT_BACKLOG, TimeZone.getDefault());
+    }
+
+    public ExpenseHttpServer(ExpenseManager expenseManager, StatisticsManager statisticsManager,
+                             ExportManager exportManager, InetSocketAddress address, int backlog,
+                             TimeZone timeZone) throws IOException {
+        if (expenseManager == null || statisticsManager == null || exportManager == null) {
+            throw new IllegalArgumentException("Managers cannot be null");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        if (timeZone == null) {
+            throw new IllegalArgumentException("Time zone cannot be null");
+        }
+        this.expenseManager = expenseManager;
+        this.statisticsManager = statisticsManager;
+        this.exportManager = exportManager;
+        this.zone = timeZone.toZoneId();
+        this.server = HttpServer.create(address, backlog);
+        this.executor = newRequestExecutor();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Stops accepting connections, gives in-flight exchanges up to a second, then stops the executor.
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is looked up reflectively so the code still
+    // builds and runs on JDK 17. Idle keep-alive connections do not hold a thread in either case.
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "expense-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // A failure after a 200 has gone out cannot change the status. Closing the exchange would
+    // end the chunked body cleanly and pass a truncated result off as complete, so the failure
+    // is rethrown instead and the JDK server drops the connection without the final chunk.
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IOException e) {
+            if (exchange.getResponseCode() != -1) {
+                throw e;
+            }
+            // The request body could not be read; the client is most likely gone.
+        } catch (RuntimeException e) {
+            if (exchange.getResponseCode() != -1) {
+                throw new IOException("Response aborted after headers were sent", e);
+            }
+            if (e instanceof HttpError) {
+                sendError(exchange, ((HttpError) e).status, e.getMessage());
+            } else if (e instanceof IllegalArgumentException) {
+                sendError(exchange, 400, e.getMessage());
+            } else {
+                sendError(exchange, 500, "Internal error");
+            }
+        }
+        exchange.close();
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        List<String> path = pathSegments(exchange);
+        String method = exchange.getRequestMethod();
+        if (path.size() == 1 && "expenses".equals(path.get(0))) {
+            requireMethod(method, "POST");
+            addExpense(exchange);
+        } else if (path.size() == 2 && "expenses".equals(path.get(0))) {
+            if ("GET".equals(method)) {
+                getExpense(exchange, path.get(1));
+            } else {
+                requireMethod(method, "DELETE");
+                removeExpense(exchange, path.get(1));
+            }
+        } else if (path.size() == 3 && "users".equals(path.get(0))) {
+            requireMethod(method, "GET");
+            Map<String, String> params = queryParameters(exchange);
+            switch (path.get(2)) {
+                case "expenses":
+                    listExpenses(exchange, path.get(1), params);
+                    break;
+                case "statistics":
+                    statistics(exchange, path.get(1));
+                    break;
+                case "export":
+                    export(exchange, path.get(1), params);
+                    break;
+                default:
+                    throw new HttpError(404, "No such resource");
+            }
+        } else {
+            throw new HttpError(404, "No such resource");
+        }
+    }
+
+    private void addExpense(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = Json.parseObject(readBody(exchange));
+        Expense expense = new Expense(stringField(body, "id"), stringField(body, "userId"),
+                stringField(body, "category"), numberField(body, "amount"), dateField(body));
+        List<Expense> duplicates = expenseManager.addAll(List.of(expense));
+        if (!duplicates.isEmpty()) {
+            throw new HttpError(409, "Expense with ID " + expense.getId() + " already exists");
+        }
+        sendJson(exchange, 201, appendExpense(expense, new StringBuilder()).toString());
+    }
+
+    private void getExpense(HttpExchange exchange, String expenseId) throws IOException {
+        Expense expense = expenseManager.getExpense(expenseId);
+        if (expense == null) {
+            throw new HttpError(404, "Expense not found");
+        }
+        sendJson(exchange, 200, appendExpense(expense, new StringBuilder()).toString());
+    }
+
+    private void removeExpense(HttpExchange exchange, String expenseId) throws IOException {
+        if (!expenseManager.removeExpense(expenseId)) {
+            throw new HttpError(404, "Expense not found");
+        }
+        // A response without a body ends the exchange at once, and the JDK server drops the
+        // connection, unannounced, if the request body was not read to the end first.
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void listExpenses(HttpExchange exchange, String userId, Map<String, String> params) throws IOException {
+        if (params.containsKey("pageSize")) {
+            sendPage(exchange, userId, params);
+            return;
+        }
+        Stream<Expense> expenses = expenseManager.query(buildQuery(userId, params));
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        // Closed only on success, which writes the final chunk; see handle().
+        Writer out = streamWriter(exchange);
+        StringBuilder row = new StringBuilder(128);
+        out.write('[');
+        Iterator<Expense> rows = expenses.iterator();
+        boolean first = true;
+        while (rows.hasNext()) {
+            row.setLength(0);
+            if (!first) {
+                row.append(',');
+            }
+            first = false;
+            out.append(appendExpense(rows.next(), row));
+        }
+        out.write(']');
+        out.close();
+    }
+
+    private void sendPage(HttpExchange exchange, String userId, Map<String, String> params) throws IOException {
+        int pageSize = intParameter(params, "pageSize");
+        String cursor = params.get("cursor");
+        String category = params.get("category");
+        boolean dateRange = params.containsKey("from") || params.containsKey("to");
+        ExpensePage page;
+        if (category != null && dateRange) {
+            throw new IllegalArgumentException("Paging supports either category or from/to, not both");
+        } else if (category != null) {
+            page = expenseManager.filterByCategory(userId, category, cursor, pageSize);
+        } else if (dateRange) {
+            page = expenseManager.filterByDateRange(userId, new Date(startOf(params.get("from"))),
+                    new Date(endOf(params.get("to"))), cursor, pageSize);
+        } else {
+            page = expenseManager.getExpensesByUser(userId, cursor, pageSize);
+        }
+        StringBuilder json = new StringBuilder("{\"expenses\":[");
+        List<Expense> expenses = page.getExpenses();
+        for (int i = 0; i < expenses.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendExpense(expenses.get(i), json);
+        }
+        json.append("],\"nextCursor\":");
+        if (page.hasNext()) {
+            Json.quote(page.getNextCursor(), json);
+        } else {
+            json.append("null");
+        }
+        sendJson(exchange, 200, json.append('}').toString());
+    }
+
+    private void statistics(HttpExchange exchange, String userId) throws IOException {
+        UserStatistics statistics = statisticsManager.getUserStatistics(userId);
+        StringBuilder json = new StringBuilder("{\"userId\":");
+        Json.quote(userId, json)
+                .append(",\"count\":").append(statistics.getCount())
+                .append(",\"total\":").append(statistics.getTotal())
+                .append(",\"max\":").append(statistics.getMax())
+                .append(",\"min\":").append(statistics.getMin())
+                .append(",\"average\":").append(statistics.getAverage())
+                .append(",\"p50\":").append(statisticsManager.getUserPercentile(userId, 50))
+                .append(",\"p90\":").append(statisticsManager.getUserPercentile(userId, 90))
+                .append(",\"p99\":").append(statisticsManager.getUserPercentile(userId, 99))
+                .append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void export(HttpExchange exchange, String userId, Map<String, String> params) throws IOException {
+        ExportFormat format;
+        try {
+            format = ExportFormat.valueOf(params.getOrDefault("format", "csv").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + params.get("format"));
+        }
+        Stream<Expense> expenses = expenseManager.query(buildQuery(userId, params));
+        exchange.getResponseHeaders().set("Content-Type", format == ExportFormat.CSV
+                ? "text/csv; charset=utf-8" : "text/tab-separated-values; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        exportManager.export(expenses, Channels.newChannel(body), format);
+        body.close();
+    }
+
+    private ExpenseQuery buildQuery(String userId, Map<String, String> params) {
+        ExpenseQuery.Builder query = ExpenseQuery.forUser(userId)
+                .category(params.get("category"))
+                .orderBy(ExpenseQuery.Order.DATE_ASCENDING);
+        if (params.containsKey("from")) {
+            query.from(new Date(startOf(params.get("from"))));
+        }
+        if (params.containsKey("to")) {
+            query.to(new Date(endOf(params.get("to"))));
+        }
+        if (params.containsKey("minAmount")) {
+            query.minAmount(doubleParameter(params, "minAmount"));
+        }
+        if (params.containsKey("maxAmount")) {
+            query.maxAmount(doubleParameter(params, "maxAmount"));
+        }
+        if (params.containsKey("limit")) {
+            query.limit(intParameter(params, "limit"));
+        }
+        if (params.containsKey("order")) {
+            try {
+                query.orderBy(ExpenseQuery.Order.valueOf(params.get("order").toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown order: " + params.get("order"));
+            }
+        }
+        return query.build();
+    }
+
+    private static StringBuilder appendExpense(Expense expense, StringBuilder json) {
+        json.append("{\"id\":");
+        Json.quote(expense.getId(), json).append(",\"userId\":");
+        Json.quote(expense.getUserId(), json).append(",\"category\":");
+        Json.quote(expense.getCategory(), json).append(",\"amount\":");
+        long cents = expense.getAmountInCents();
+        json.append(cents / 100).append('.').append((char) ('0' + cents % 100 / 10)).append((char) ('0' + cents % 10));
+        return json.append(",\"timestamp\":").append(expense.getTimestamp()).append('}');
+    }
+
+    private Date dateField(Map<String, Object> body) {
+        Object date = body.get("date");
+        if (date == null) {
+            return new Date();
+        }
+        if (!(date instanceof String)) {
+            throw new IllegalArgumentException("Field date must be a yyyy-MM-dd string");
+        }
+        return new Date(startOf((String) date));
+    }
+
+    private static String stringField(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Field " + name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static double numberField(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException("Field " + name + " must be a number");
+        }
+        return (Double) value;
+    }
+
+    private long startOf(String day) {
+        try {
+            return LocalDate.parse(day).atStartOfDay(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid date: " + day + " (expected yyyy-MM-dd)");
+        }
+    }
+
+    private long endOf(String day) {
+        try {
+            return LocalDate.parse(day).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        } catch (DateTimeException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid date: " + day + " (expected yyyy-MM-dd)");
+        }
+    }
+
+    private static int intParameter(Map<String, String> params, String name) {
+        try {
+            return Integer.parseInt(params.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be an integer");
+        }
+    }
+
+    private static double doubleParameter(Map<String, String> params, String name) {
+        try {
+            return Double.parseDouble(params.get(name));
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number");
+        }
+    }
+
+    private static void requireMethod(String method, String allowed) {
+        if (!allowed.equals(method)) {
+            throw new HttpError(405, "Method " + method + " not allowed; use " + allowed);
+        }
+    }
+
+    private static List<String> pathSegments(HttpExchange exchange) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Writer streamWriter(HttpExchange exchange) {
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                STREAM_BUFFER_CHARS);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    // Only possible before the response headers have gone out.
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            StringBuilder json = new StringBuilder("{\"error\":");
+            Json.quote(message == null ? "" : message, json).append('}');
+            sendJson(exchange, status, json.toString());
+        } catch (IOException e) {
+            // The client went away; nothing more can be sent.
+        }
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
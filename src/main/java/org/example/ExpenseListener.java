@@ -0,0 +1,7 @@
+package org.example;
+
+public interface ExpenseListener {
+    void expenseAdded(Expense expense);
+
+    void expenseRemoved(Expense expense);
+}
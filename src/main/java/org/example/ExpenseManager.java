@@ -1,59 +1,350 @@
 package org.example;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+// Each expense ID's store change and its listener notifications happen under one striped
+// lock, so listeners see the adds and removes of an ID in the order the store applied them.
+// Changes to different IDs commute for every listener, so they need no common order.
 public class ExpenseManager {
-    private final List<Expense> expenses = new ArrayList<>();
+    private static final int MUTATION_STRIPES = 64; // one bit each in a long mask
+    private static final long ALL_STRIPES = -1L;
+
+    private final ExpenseStore store;
+    private final List<ExpenseListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock[] mutationLocks = new ReentrantLock[MUTATION_STRIPES];
+    private final OperationTimer addTimer;
+    private final OperationTimer addAllTimer;
+    private final OperationTimer removeTimer;
+    private final OperationTimer byUserTimer;
+    private final OperationTimer byCategoryTimer;
+    private final OperationTimer byDateRangeTimer;
+    private final OperationTimer byAmountTimer;
+    private final OperationTimer pageTimer;
+    private final OperationTimer queryTimer;
+
+    public ExpenseManager() {
+        this(new IndexedExpenseStore());
+    }
+
+    public ExpenseManager(ExpenseStore store) {
+        this(store, Metrics.DISABLED);
+    }
+
+    public ExpenseManager(ExpenseStore store, Metrics metrics) {
+        if (store == null) {
+            throw new IllegalArgumentException("Expense store cannot be null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.store = store;
+        for (int i = 0; i < MUTATION_STRIPES; i++) {
+            mutationLocks[i] = new ReentrantLock();
+        }
+        this.addTimer = metrics.timer("expenses.addExpense");
+        this.addAllTimer = metrics.timer("expenses.addAll");
+        this.removeTimer = metrics.timer("expenses.removeExpense");
+        this.byUserTimer = metrics.timer("expenses.getExpensesByUser");
+        this.byCategoryTimer = metrics.timer("expenses.filterByCategory");
+        this.byDateRangeTimer = metrics.timer("expenses.filterByDateRange");
+        this.byAmountTimer = metrics.timer("expenses.sortByAmount");
+        this.pageTimer = metrics.timer("expenses.page");
+        // Covers planning only; rows of a lazy stream are read after the timer stops.
+        this.queryTimer = metrics.timer("expenses.query");
+        metrics.gauge("expenses.rows", store::size);
+        metrics.gauge("expenses.users", store::userCount);
+    }
 
     public void addExpense(Expense expense) {
         if (expense == null) {
             throw new IllegalArgumentException("Expense cannot be null");
         }
-        expenses.add(expense);
+        long start = addTimer.start();
+        ReentrantLock lock = mutationLock(expense.getId());
+        lock.lock();
+        try {
+            store.add(expense);
+            for (ExpenseListener listener : listeners) {
+                listener.expenseAdded(expense);
+            }
+        } finally {
+            lock.unlock();
+            addTimer.stop(start);
+        }
+    }
+
+    // Commits a batch through the store's bulk path; expenses whose IDs are already taken are
+    // skipped and returned instead of aborting the batch. A row the store cannot hold fails the
+    // whole batch before anything is written, so listeners never miss a committed row.
+    public List<Expense> addAll(Collection<Expense> expenses) {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses cannot be null");
+        }
+        for (Expense expense : expenses) {
+            if (expense == null) {
+                throw new IllegalArgumentException("Expense cannot be null");
+            }
+        }
+        long start = addAllTimer.start();
+        try {
+            return commit(new ArrayList<>(expenses));
+        } finally {
+            addAllTimer.stop(start);
+        }
+    }
+
+    // Bulk path for already-decoded rows: skips the per-row argument checks of addAll.
+    void loadExpenses(List<Expense> expenses) {
+        List<Expense> duplicates = commit(expenses);
+        if (!duplicates.isEmpty()) {
+            throw new IllegalArgumentException("Expense with ID " + duplicates.get(0).getId() + " already exists");
+        }
     }
 
     public boolean removeExpense(String expenseId) {
         if (expenseId == null || expenseId.trim().isEmpty()) {
             return false;
         }
-        return expenses.removeIf(expense -> expense.getId().equals(expenseId));
+        long start = removeTimer.start();
+        ReentrantLock lock = mutationLock(expenseId);
+        lock.lock();
+        try {
+            Expense removed = store.remove(expenseId);
+            if (removed == null) {
+                return false;
+            }
+            for (ExpenseListener listener : listeners) {
+                listener.expenseRemoved(removed);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+            removeTimer.stop(start);
+        }
+    }
+
+    // Existing expenses are replayed to the new listener so it starts in sync. Every stripe is
+    // held across the replay and the registration, so no change can fall between the two.
+    public void addListener(ExpenseListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        lockStripes(ALL_STRIPES);
+        try {
+            store.forEach(listener::expenseAdded);
+            listeners.add(listener);
+        } finally {
+            unlockStripes(ALL_STRIPES);
+        }
+    }
+
+    public boolean removeListener(ExpenseListener listener) {
+        return listeners.remove(listener);
+    }
+
+    public Expense getExpense(String expenseId) {
+        if (expenseId == null) {
+            return null;
+        }
+        return store.get(expenseId);
     }
 
     public List<Expense> getExpensesByUser(String userId) {
         if (userId == null || userId.trim().isEmpty()) {
             return new ArrayList<>();
         }
-        return expenses.stream()
-                .filter(expense -> expense.getUserId().equals(userId))
-                .collect(Collectors.toList());
+        long start = byUserTimer.start();
+        try {
+            return store.findByUser(userId);
+        } finally {
+            byUserTimer.stop(start);
+        }
     }
 
     public List<Expense> filterByCategory(String userId, String category) {
         if (userId == null || category == null) {
             return new ArrayList<>();
         }
-        return getExpensesByUser(userId).stream()
-                .filter(expense -> expense.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        long start = byCategoryTimer.start();
+        try {
+            return store.findByCategory(userId, category);
+        } finally {
+            byCategoryTimer.stop(start);
+        }
     }
 
     public List<Expense> filterByDateRange(String userId, Date startDate, Date endDate) {
         if (userId == null || startDate == null || endDate == null) {
             return new ArrayList<>();
         }
-        return getExpensesByUser(userId).stream()
-                .filter(expense -> !expense.getDate().before(startDate) &&
-                        !expense.getDate().after(endDate))
-                .collect(Collectors.toList());
+        long start = byDateRangeTimer.start();
+        try {
+            return store.findByDateRange(userId, startDate.getTime(), endDate.getTime());
+        } finally {
+            byDateRangeTimer.stop(start);
+        }
+    }
+
+    // Keyset pagination in (date, id) order. Pass a null cursor for the first page and the
+    // page's next cursor afterwards; rows added concurrently never shift or repeat rows on
+    // later pages, and each call costs only about as much as the page it returns.
+    public ExpensePage getExpensesByUser(String userId, String cursor, int pageSize) {
+        return page(userId, null, Long.MIN_VALUE, Long.MAX_VALUE, cursor, pageSize);
+    }
+
+    public ExpensePage filterByCategory(String userId, String category, String cursor, int pageSize) {
+        if (category == null) {
+            return emptyPage(pageSize);
+        }
+        return page(userId, category, Long.MIN_VALUE, Long.MAX_VALUE, cursor, pageSize);
+    }
+
+    public ExpensePage filterByDateRange(String userId, Date startDate, Date endDate, String cursor, int pageSize) {
+        if (startDate == null || endDate == null) {
+            return emptyPage(pageSize);
+        }
+        return page(userId, null, startDate.getTime(), endDate.getTime(), cursor, pageSize);
+    }
+
+    public Stream<Expense> query(ExpenseQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        long start = queryTimer.start();
+        try {
+            return store.query(query);
+        } finally {
+            queryTimer.stop(start);
+        }
     }
 
     public List<Expense> sortExpensesByAmount(String userId) {
         if (userId == null) {
             return new ArrayList<>();
         }
-        List<Expense> userExpenses = getExpensesByUser(userId);
-        userExpenses.sort(Comparator.comparingDouble(Expense::getAmount));
-        return userExpenses;
+        return getExpensesSortedByAmount(userId, false, 0, Integer.MAX_VALUE);
+    }
+
+    public List<Expense> getExpensesSortedByAmount(String userId, boolean descending, int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        if (userId == null || userId.trim().isEmpty() || limit == 0) {
+            return new ArrayList<>();
+        }
+        long start = byAmountTimer.start();
+        try {
+            return store.findByAmount(userId, descending, offset, limit);
+        } finally {
+            byAmountTimer.stop(start);
+        }
+    }
+
+    public List<Expense> topExpensesByAmount(String userId, int k) {
+        return getExpensesSortedByAmount(userId, true, 0, k);
+    }
+
+    public long[] getAmountsInCents(String userId) {
+        if (userId == null || userId.trim().isEmpty()) {
+            return new long[0];
+        }
+        return store.amountsInCents(userId);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public int userCount() {
+        return store.userCount();
+    }
+
+    private List<Expense> commit(List<Expense> expenses) {
+        long stripes = 0;
+        for (Expense expense : expenses) {
+            stripes |= 1L << stripeOf(expense.getId());
+        }
+        lockStripes(stripes);
+        try {
+            List<Expense> duplicates = store.addAll(expenses);
+            for (ExpenseListener listener : listeners) {
+                int nextDuplicate = 0;
+                for (Expense expense : expenses) {
+                    if (nextDuplicate < duplicates.size() && duplicates.get(nextDuplicate) == expense) {
+                        nextDuplicate++;
+                    } else {
+                        listener.expenseAdded(expense);
+                    }
+                }
+            }
+            return duplicates;
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    // Ascending stripe order for every multi-stripe caller, so they cannot deadlock each other.
+    private void lockStripes(long stripes) {
+        for (int i = 0; i < MUTATION_STRIPES; i++) {
+            if ((stripes & (1L << i)) != 0) {
+                mutationLocks[i].lock();
+            }
+        }
+    }
+
+    private void unlockStripes(long stripes) {
+        for (int i = MUTATION_STRIPES - 1; i >= 0; i--) {
+            if ((stripes & (1L << i)) != 0) {
+                mutationLocks[i].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock mutationLock(String expenseId) {
+        return mutationLocks[stripeOf(expenseId)];
+    }
+
+    private static int stripeOf(String expenseId) {
+        int hash = expenseId.hashCode();
+        return (hash ^ (hash >>> 16)) & (MUTATION_STRIPES - 1);
+    }
+
+    private ExpensePage page(String userId, String category, long startTime, long endTime,
+                             String cursor, int pageSize) {
+        if (userId == null || userId.trim().isEmpty()) {
+            return emptyPage(pageSize);
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        // One extra row tells whether another page follows.
+        int limit = (int) Math.min((long) pageSize + 1, Integer.MAX_VALUE);
+        List<Expense> rows;
+        long start = pageTimer.start();
+        try {
+            rows = store.findPage(userId, category, startTime, endTime,
+                    after == null ? 0 : after.getTimestamp(), after == null ? null : after.getId(), limit);
+        } finally {
+            pageTimer.stop(start);
+        }
+        if (rows.size() <= pageSize) {
+            return new ExpensePage(rows, null);
+        }
+        List<Expense> page = rows.subList(0, pageSize);
+        return new ExpensePage(page, PageCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    private ExpensePage emptyPage(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return new ExpensePage(new ArrayList<>(), null);
     }
 }
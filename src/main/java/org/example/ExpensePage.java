@@ -0,0 +1,28 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ExpensePage {
+    private final List<Expense> expenses;
+    private final String nextCursor;
+
+    public ExpensePage(List<Expense> expenses, String nextCursor) {
+        this.expenses = Collections.unmodifiableList(new ArrayList<>(expenses));
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+
+    // Opaque token for the following page, or null when this is the last page.
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
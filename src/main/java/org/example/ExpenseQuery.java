@@ -0,0 +1,233 @@
+package org.example;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Immutable description of a query over one user's expenses. All bounds are inclusive;
+// ties in the requested order are broken by expense ID.
+public class ExpenseQuery {
+    public enum Order {
+        ANY, DATE_ASCENDING, DATE_DESCENDING, AMOUNT_ASCENDING, AMOUNT_DESCENDING
+    }
+
+    private static final Comparator<Expense> BY_DATE =
+            Comparator.comparingLong(Expense::getTimestamp).thenComparing(Expense::getId);
+    private static final Comparator<Expense> BY_AMOUNT =
+            Comparator.comparingLong(Expense::getAmountInCents).thenComparing(Expense::getId);
+
+    private final String userId;
+    private final String category;
+    private final String categoryKey;
+    private final long startTime;
+    private final long endTime;
+    private final long minCents;
+    private final long maxCents;
+    private final int limit;
+    private final Order order;
+
+    private ExpenseQuery(Builder builder) {
+        this.userId = builder.userId;
+        this.category = builder.category;
+        this.categoryKey = builder.category == null ? null : CategoryDictionary.normalize(builder.category);
+        this.startTime = builder.startTime;
+        this.endTime = builder.endTime;
+        this.minCents = builder.minCents;
+        this.maxCents = builder.maxCents;
+        this.limit = builder.limit;
+        this.order = builder.order;
+    }
+
+    public static Builder forUser(String userId) {
+        return new Builder(userId);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getMinCents() {
+        return minCents;
+    }
+
+    public long getMaxCents() {
+        return maxCents;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    // Every predicate except the user, fused into one check; cheap range tests go first.
+    boolean matches(Expense expense) {
+        long timestamp = expense.getTimestamp();
+        long cents = expense.getAmountInCents();
+        return timestamp >= startTime && timestamp <= endTime
+                && cents >= minCents && cents <= maxCents
+                && (categoryKey == null || CategoryDictionary.sameCategory(categoryKey, expense.getCategory()));
+    }
+
+    // Filters candidates that arrive in sourceOrder, sorting only when that differs from the
+    // requested order, and stops after the limit.
+    Stream<Expense> finish(Stream<Expense> candidates, Order sourceOrder) {
+        Stream<Expense> result = candidates.filter(this::matches);
+        if (order != Order.ANY && order != sourceOrder) {
+            result = result.sorted(comparator(order));
+        }
+        return limit == Integer.MAX_VALUE ? result : result.limit(limit);
+    }
+
+    // Orders a locking store can serve through inPages without buffering the whole result.
+    boolean pageable() {
+        return order == Order.ANY || order == Order.DATE_ASCENDING;
+    }
+
+    // Reads the candidates in (timestamp, id) order through keyset pages of batchRows, so only
+    // one page is held at a time and the store is locked per page, not for the whole stream.
+    // Rows changed between pages may or may not appear; rows left alone appear exactly once.
+    Stream<Expense> inPages(ExpenseStore store, int batchRows) {
+        Iterator<Expense> rows = new Iterator<Expense>() {
+            private List<Expense> page = store.findPage(userId, category, startTime, endTime, 0, null, batchRows);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == batchRows) {
+                    Expense last = page.get(batchRows - 1);
+                    page = store.findPage(userId, category, startTime, endTime,
+                            last.getTimestamp(), last.getId(), batchRows);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public Expense next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+        Spliterator<Expense> spliterator = Spliterators.spliteratorUnknownSize(rows,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return finish(StreamSupport.stream(spliterator, false), Order.DATE_ASCENDING);
+    }
+
+    private static Comparator<Expense> comparator(Order order) {
+        switch (order) {
+            case DATE_ASCENDING:
+                return BY_DATE;
+            case DATE_DESCENDING:
+                return BY_DATE.reversed();
+            case AMOUNT_ASCENDING:
+                return BY_AMOUNT;
+            case AMOUNT_DESCENDING:
+                return BY_AMOUNT.reversed();
+            default:
+                throw new IllegalArgumentException("No comparator for order " + order);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExpenseQuery{userId='" + userId + "', category='" + category + "', startTime=" + startTime
+                + ", endTime=" + endTime + ", minCents=" + minCents + ", maxCents=" + maxCents
+                + ", limit=" + limit + ", order=" + order + "}";
+    }
+
+    public static class Builder {
+        private final String userId;
+        private String category;
+        private long startTime = Long.MIN_VALUE;
+        private long endTime = Long.MAX_VALUE;
+        private long minCents = Long.MIN_VALUE;
+        private long maxCents = Long.MAX_VALUE;
+        private int limit = Integer.MAX_VALUE;
+        private Order order = Order.ANY;
+
+        private Builder(String userId) {
+            this.userId = userId;
+        }
+
+        public Builder category(String category) {
+            this.category = category;
+            return this;
+        }
+
+        public Builder from(Date startDate) {
+            if (startDate == null) {
+                throw new IllegalArgumentException("Start date cannot be null");
+            }
+            this.startTime = startDate.getTime();
+            return this;
+        }
+
+        public Builder to(Date endDate) {
+            if (endDate == null) {
+                throw new IllegalArgumentException("End date cannot be null");
+            }
+            this.endTime = endDate.getTime();
+            return this;
+        }
+
+        public Builder between(Date startDate, Date endDate) {
+            return from(startDate).to(endDate);
+        }
+
+        public Builder minAmount(double amount) {
+            this.minCents = Math.round(amount * 100.0);
+            return this;
+        }
+
+        public Builder maxAmount(double amount) {
+            this.maxCents = Math.round(amount * 100.0);
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder orderBy(Order order) {
+            if (order == null) {
+                throw new IllegalArgumentException("Order cannot be null");
+            }
+            this.order = order;
+            return this;
+        }
+
+        public ExpenseQuery build() {
+            if (userId == null || userId.trim().isEmpty()) {
+                throw new IllegalArgumentException("User ID cannot be null or empty");
+            }
+            return new ExpenseQuery(this);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Bounded cache of per-user query and statistics results in front of ExpenseManager and
+// StatisticsManager. Each user has a version counter that this cache, as a listener of the
+// manager, bumps on every add or remove; an entry is served only while its version is
+// current, so a write invalidates exactly that user's results. The version is read before
+// the result is computed, and stores notify listeners only after they change, so a result
+// computed across a concurrent write is stored under the older version and never served.
+// Percentiles come from StatisticsManager's own totals, which as a separate listener may
+// lag or lead this cache's counter, so they are versioned by StatisticsManager.version.
+// Entries are spread over up to 16 segments, each with its own lock and an equal share of
+// the weight; eviction is LRU by weight within a segment, where a list weighs its size plus
+// one and a statistic weighs one. Caches under 2048 weight use one segment, so LRU is exact.
+// Returned lists are shared and unmodifiable.
+public class ExpenseQueryCache implements ExpenseListener {
+    private static final int MAX_SEGMENTS = 16;
+    private static final long MIN_SEGMENT_WEIGHT = 1024;
+
+    private final ExpenseManager expenseManager;
+    private final StatisticsManager statisticsManager;
+    private final ConcurrentMap<String, Long> versionsByUser = new ConcurrentHashMap<>();
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpenseQueryCache(ExpenseManager expenseManager, StatisticsManager statisticsManager, long maxWeight) {
+        this(expenseManager, statisticsManager, maxWeight, Metrics.DISABLED);
+    }
+
+    public ExpenseQueryCache(ExpenseManager expenseManager, StatisticsManager statisticsManager, long maxWeight,
+                             Metrics metrics) {
+        if (expenseManager == null || statisticsManager == null) {
+            throw new IllegalArgumentException("Managers cannot be null");
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Maximum cache weight must be positive");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.expenseManager = expenseManager;
+        this.statisticsManager = statisticsManager;
+        this.segments = new Segment[(int) Math.min(MAX_SEGMENTS, Math.max(1, maxWeight / MIN_SEGMENT_WEIGHT))];
+        for (int i = 0; i < segments.length; i++) {
+            // Spread the remainder so the segment shares add up to maxWeight.
+            segments[i] = new Segment(maxWeight / segments.length + (i < maxWeight % segments.length ? 1 : 0));
+        }
+        metrics.gauge("cache.hits", this::getHitCount);
+        metrics.gauge("cache.misses", this::getMissCount);
+        metrics.gauge("cache.evictions", this::getEvictionCount);
+        metrics.gauge("cache.entries", this::getEntryCount);
+        metrics.gauge("cache.weight", this::getWeight);
+        expenseManager.addListener(this);
+    }
+
+    public List<Expense> getExpensesByUser(String userId) {
+        if (userId == null) {
+            return Collections.emptyList();
+        }
+        return lookup(new QueryKey(userId, "user", null, 0, 0), version(userId),
+                () -> expenseManager.getExpensesByUser(userId));
+    }
+
+    public List<Expense> filterByCategory(String userId, String category) {
+        if (userId == null || category == null) {
+            return Collections.emptyList();
+        }
+        return lookup(new QueryKey(userId, "category", CategoryDictionary.normalize(category), 0, 0),
+                version(userId), () -> expenseManager.filterByCategory(userId, category));
+    }
+
+    public List<Expense> filterByDateRange(String userId, Date startDate, Date endDate) {
+        if (userId == null || startDate == null || endDate == null) {
+            return Collections.emptyList();
+        }
+        long startTime = startDate.getTime();
+        long endTime = endDate.getTime();
+        return lookup(new QueryKey(userId, "range", null, startTime, endTime), version(userId),
+                () -> expenseManager.filterByDateRange(userId, new Date(startTime), new Date(endTime)));
+    }
+
+    public double calculateTotal(String userId) {
+        return statistic(userId, "total", () -> statisticsManager.calculateTotal(getExpensesByUser(userId)));
+    }
+
+    public double calculateMax(String userId) {
+        return statistic(userId, "max", () -> statisticsManager.calculateMax(getExpensesByUser(userId)));
+    }
+
+    public double calculateAverage(String userId) {
+        return statistic(userId, "average", () -> statisticsManager.calculateAverage(getExpensesByUser(userId)));
+    }
+
+    public double getUserPercentile(String userId, double percentile) {
+        if (Double.isNaN(percentile) || percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (userId == null) {
+            return statisticsManager.getUserPercentile(null, percentile);
+        }
+        return lookup(new QueryKey(userId, "percentile", null, Double.doubleToLongBits(percentile), 0),
+                statisticsManager.version(userId), () -> statisticsManager.getUserPercentile(userId, percentile));
+    }
+
+    @Override
+    public void expenseAdded(Expense expense) {
+        versionsByUser.merge(expense.getUserId(), 1L, Long::sum);
+    }
+
+    @Override
+    public void expenseRemoved(Expense expense) {
+        versionsByUser.merge(expense.getUserId(), 1L, Long::sum);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public long getEntryCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.size();
+        }
+        return count;
+    }
+
+    public long getWeight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private double statistic(String userId, String kind, Supplier<Double> compute) {
+        if (userId == null) {
+            return compute.get();
+        }
+        return lookup(new QueryKey(userId, kind, null, 0, 0), version(userId), compute);
+    }
+
+    private long version(String userId) {
+        return versionsByUser.getOrDefault(userId, 0L);
+    }
+
+    // The version must be read before compute runs; see the class comment.
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(QueryKey key, long version, Supplier<T> compute) {
+        Segment segment = segmentFor(key);
+        Object value = segment.get(key, version);
+        if (value != null) {
+            hits.increment();
+            return (T) value;
+        }
+        misses.increment();
+        T computed = compute.get();
+        // The managers return a fresh list per call, so wrapping it is enough to share it safely.
+        Object cached = computed instanceof List ? Collections.unmodifiableList((List<?>) computed) : computed;
+        long entryWeight = computed instanceof List ? ((List<?>) computed).size() + 1L : 1L;
+        segment.put(key, new Entry(cached, version, entryWeight));
+        return (T) cached;
+    }
+
+    // Takes the segment from the high bits of the mixed hash; the maps inside use the low bits.
+    private Segment segmentFor(QueryKey key) {
+        long mixed = (key.hash * 0x9E3779B9) & 0xFFFFFFFFL;
+        return segments[(int) ((mixed * segments.length) >>> 32)];
+    }
+
+    private final class Segment {
+        private final long maxWeight;
+        // Access order makes iteration start at the least recently used entry.
+        private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized Object get(QueryKey key, long version) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.version == version ? entry.value : null;
+        }
+
+        synchronized void put(QueryKey key, Entry entry) {
+            if (entry.weight > maxWeight) {
+                return;
+            }
+            Entry previous = entries.get(key);
+            if (previous != null && previous.version > entry.version) {
+                // A slower reader finished after a newer result was cached; keep the newer one.
+                return;
+            }
+            entries.put(key, entry);
+            weight += entry.weight - (previous == null ? 0 : previous.weight);
+            Iterator<Map.Entry<QueryKey, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long version;
+        private final long weight;
+
+        Entry(Object value, long version, long weight) {
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+        }
+    }
+
+    private static final class QueryKey {
+        private final String userId;
+        private final String kind;
+        private final String text;
+        private final long first;
+        private final long second;
+        private final int hash;
+
+        QueryKey(String userId, String kind, String text, long first, long second) {
+            this.userId = userId;
+            this.kind = kind;
+            this.text = text;
+            this.first = first;
+            this.second = second;
+            this.hash = Objects.hash(userId, kind, text, first, second);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof QueryKey)) return false;
+            QueryKey that = (QueryKey) o;
+            return first == that.first && second == that.second && userId.equals(that.userId)
+                    && kind.equals(that.kind) && Objects.equals(text, that.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface ExpenseStore {
+    void add(Expense expense);
+
+    // Throws IllegalArgumentException, without changing anything, for an expense this store
+    // can never hold (a field too long for a fixed-size record, say). Duplicate IDs are not
+    // checked here.
+    default void validate(Expense expense) {
+    }
+
+    // Adds every expense whose ID is not already taken (in the store or earlier in the batch)
+    // and returns the ones that were skipped as duplicates, in batch order. Every row is
+    // validated before any is written, so a row the store cannot hold fails the whole batch
+    // without leaving part of it behind.
+    default List<Expense> addAll(List<Expense> expenses) {
+        for (Expense expense : expenses) {
+            validate(expense);
+        }
+        List<Expense> duplicates = new ArrayList<>();
+        for (Expense expense : expenses) {
+            if (get(expense.getId()) != null) {
+                duplicates.add(expense);
+            } else {
+                add(expense);
+            }
+        }
+        return duplicates;
+    }
+
+    Expense remove(String expenseId);
+
+    Expense get(String expenseId);
+
+    List<Expense> findByUser(String userId);
+
+    List<Expense> findByCategory(String userId, String category);
+
+    List<Expense> findByDateRange(String userId, long startTime, long endTime);
+
+    long[] amountsInCents(String userId);
+
+    // Stores without an amount index sort the user's rows on every call.
+    default List<Expense> findByAmount(String userId, boolean descending, int offset, int limit) {
+        List<Expense> rows = findByUser(userId);
+        Comparator<Expense> order = Comparator.comparingLong(Expense::getAmountInCents).thenComparing(Expense::getId);
+        rows.sort(descending ? order.reversed() : order);
+        int from = Math.min(offset, rows.size());
+        int to = (int) Math.min((long) offset + limit, rows.size());
+        return new ArrayList<>(rows.subList(from, to));
+    }
+
+    // Keyset page in (timestamp, id) order: rows strictly after (afterTime, afterId), or from
+    // the start when afterId is null, within [startTime, endTime] and, if category is not null,
+    // in that category. Stores without a date index sort the matching rows on every call.
+    default List<Expense> findPage(String userId, String category, long startTime, long endTime,
+                                   long afterTime, String afterId, int limit) {
+        List<Expense> rows = category == null ? findByDateRange(userId, startTime, endTime)
+                : findByCategory(userId, category);
+        List<Expense> page = new ArrayList<>();
+        for (Expense expense : rows) {
+            long timestamp = expense.getTimestamp();
+            if (timestamp < startTime || timestamp > endTime) {
+                continue;
+            }
+            if (afterId != null && (timestamp < afterTime
+                    || timestamp == afterTime && expense.getId().compareTo(afterId) <= 0)) {
+                continue;
+            }
+            page.add(expense);
+        }
+        page.sort(Comparator.comparingLong(Expense::getTimestamp).thenComparing(Expense::getId));
+        return new ArrayList<>(page.subList(0, Math.min(limit, page.size())));
+    }
+
+    // Stores without secondary indexes read the user's rows, or the category's rows when one
+    // is given, and apply the remaining predicates in one pass.
+    default Stream<Expense> query(ExpenseQuery query) {
+        List<Expense> candidates = query.getCategory() == null ? findByUser(query.getUserId())
+                : findByCategory(query.getUserId(), query.getCategory());
+        return query.finish(candidates.stream(), ExpenseQuery.Order.ANY);
+    }
+
+    int size();
+
+    // Stores without a per-user index count distinct users with a full scan.
+    default int userCount() {
+        Set<String> users = new HashSet<>();
+        forEach(expense -> users.add(expense.getUserId()));
+        return users.size();
+    }
+
+    void forEach(Consumer<Expense> action);
+}
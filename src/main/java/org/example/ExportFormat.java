@@ -0,0 +1,16 @@
+package org.example;
+
+public enum ExportFormat {
+    CSV((byte) ','),
+    TSV((byte) '\t');
+
+    private final byte separator;
+
+    ExportFormat(byte separator) {
+        this.separator = separator;
+    }
+
+    byte separator() {
+        return separator;
+    }
+}
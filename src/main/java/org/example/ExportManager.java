@@ -1,11 +1,53 @@
 package org.example;
 
-import java.text.SimpleDateFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 public class ExportManager {
-    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
-    private static final SimpleDateFormat formatter = new SimpleDateFormat(DATE_FORMAT);
+    static final int PARALLEL_CHUNK_ROWS = 8192;
+
+    private final DateRenderer dateRenderer = new DateRenderer();
+    private final OperationTimer exportTimer;
+    private final OperationTimer exportParallelTimer;
+    private final OperationTimer exportBinaryTimer;
+    private final OperationTimer importBinaryTimer;
+    private final OperationTimer importDelimitedTimer;
+
+    public ExportManager() {
+        this(Metrics.DISABLED);
+    }
+
+    public ExportManager(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.exportTimer = metrics.timer("export.export");
+        this.exportParallelTimer = metrics.timer("export.exportParallel");
+        this.exportBinaryTimer = metrics.timer("export.exportBinary");
+        this.importBinaryTimer = metrics.timer("export.importBinary");
+        this.importDelimitedTimer = metrics.timer("export.importDelimited");
+    }
 
     public void exportToConsole(List<Expense> expenses) {
         if (expenses == null) {
@@ -22,6 +64,230 @@ public class ExportManager {
         expenses.forEach(this::printExpense);
     }
 
+    public long exportToFile(Iterator<Expense> expenses, Path path, ExportFormat format) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Export path cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return export(expenses, channel, format);
+        }
+    }
+
+    public long exportToFile(Stream<Expense> expenses, Path path, ExportFormat format) throws IOException {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses stream cannot be null");
+        }
+        return exportToFile(expenses.iterator(), path, format);
+    }
+
+    public long export(Stream<Expense> expenses, WritableByteChannel channel, ExportFormat format) throws IOException {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses stream cannot be null");
+        }
+        return export(expenses.iterator(), channel, format);
+    }
+
+    // Rows are encoded straight into one reusable buffer, so memory stays bounded for any input size.
+    public long export(Iterator<Expense> expenses, WritableByteChannel channel, ExportFormat format) throws IOException {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses iterator cannot be null");
+        }
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Export format cannot be null");
+        }
+        long start = exportTimer.start();
+        try {
+            DelimitedExpenseWriter writer = new DelimitedExpenseWriter(channel, format, dateRenderer);
+            writer.writeHeader();
+            long rows = 0;
+            while (expenses.hasNext()) {
+                writer.writeRow(expenses.next());
+                rows++;
+            }
+            writer.flush();
+            return rows;
+        } finally {
+            exportTimer.stop(start);
+        }
+    }
+
+    public long exportBinary(Iterator<Expense> expenses, Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Export path cannot be null");
+        }
+        try (OutputStream output = Files.newOutputStream(path)) {
+            return exportBinary(expenses, output);
+        }
+    }
+
+    // Compact columnar format; see BinaryExpenseFormat for the block layout.
+    public long exportBinary(Iterator<Expense> expenses, OutputStream output) throws IOException {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses iterator cannot be null");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        long start = exportBinaryTimer.start();
+        try {
+            return BinaryExpenseFormat.write(expenses, output);
+        } finally {
+            exportBinaryTimer.stop(start);
+        }
+    }
+
+    public long importBinary(Path path, ExpenseManager target) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Import path cannot be null");
+        }
+        try (InputStream input = Files.newInputStream(path)) {
+            return importBinary(input, target);
+        }
+    }
+
+    // Each block is checksummed before any of its rows reach the target, so a corrupt
+    // block fails the import without loading partial rows from it.
+    public long importBinary(InputStream input, ExpenseManager target) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input stream cannot be null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Target expense manager cannot be null");
+        }
+        long start = importBinaryTimer.start();
+        try {
+            return BinaryExpenseFormat.read(input, target::loadExpenses);
+        } finally {
+            importBinaryTimer.stop(start);
+        }
+    }
+
+    public ImportReport importDelimited(Path path, ExportFormat format, ExpenseManager target) throws IOException {
+        return importDelimited(path, format, target, ForkJoinPool.commonPool(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    // Reads what exportToFile writes. Chunks of the mapped file are parsed on the executor and
+    // committed through ExpenseManager.addAll in file order; malformed and duplicate rows are
+    // reported by line number instead of aborting the import.
+    public ImportReport importDelimited(Path path, ExportFormat format, ExpenseManager target,
+                                        ExecutorService executor, int maxChunksInFlight) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Import path cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Export format cannot be null");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Target expense manager cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Chunks in flight must be positive");
+        }
+        long start = importDelimitedTimer.start();
+        try {
+            return new DelimitedExpenseImporter(format, TimeZone.getDefault(), DelimitedExpenseImporter.DEFAULT_CHUNK_BYTES)
+                    .importFile(path, target, executor, maxChunksInFlight);
+        } finally {
+            importDelimitedTimer.stop(start);
+        }
+    }
+
+    public long exportParallel(Iterator<Expense> expenses, WritableByteChannel channel, ExportFormat format)
+            throws IOException {
+        return exportParallel(expenses, channel, format, ForkJoinPool.commonPool(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    // Chunks are formatted on the executor and written in input order; at most
+    // maxChunksInFlight formatted chunks are held in memory at once.
+    public long exportParallel(Iterator<Expense> expenses, WritableByteChannel channel, ExportFormat format,
+                               ExecutorService executor, int maxChunksInFlight) throws IOException {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses iterator cannot be null");
+        }
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Export format cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Chunks in flight must be positive");
+        }
+        long start = exportParallelTimer.start();
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        long rows = 0;
+        try {
+            DelimitedExpenseWriter header = new DelimitedExpenseWriter(channel, format, dateRenderer);
+            header.writeHeader();
+            header.flush();
+            while (expenses.hasNext()) {
+                List<Expense> chunk = new ArrayList<>(PARALLEL_CHUNK_ROWS);
+                while (chunk.size() < PARALLEL_CHUNK_ROWS && expenses.hasNext()) {
+                    chunk.add(expenses.next());
+                }
+                rows += chunk.size();
+                inFlight.add(executor.submit(() -> formatChunk(chunk, format)));
+                if (inFlight.size() >= maxChunksInFlight) {
+                    writeFully(channel, inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeFully(channel, inFlight.poll());
+            }
+        } finally {
+            for (Future<byte[]> pending : inFlight) {
+                pending.cancel(true);
+            }
+            exportParallelTimer.stop(start);
+        }
+        return rows;
+    }
+
+    private byte[] formatChunk(List<Expense> chunk, ExportFormat format) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunk.size() * 64);
+        DelimitedExpenseWriter writer = new DelimitedExpenseWriter(Channels.newChannel(bytes), format, dateRenderer);
+        try {
+            for (Expense expense : chunk) {
+                writer.writeRow(expense);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(WritableByteChannel channel, Future<byte[]> chunk) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Export chunk failed", e.getCause());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
     private void printHeader() {
         System.out.printf("%-10s %-10s %-15s %-10s %-20s%n",
                 "Expense ID", "User ID", "Category", "Amount", "Date");
@@ -41,6 +307,6 @@ public class ExportManager {
                 expense.getUserId(),
                 expense.getCategory(),
                 expense.getAmount(),
-                formatter.format(expense.getDate()));
+                dateRenderer.format(expense.getTimestamp()));
     }
 }
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ImportReport {
+    // Only the first errors are kept so a badly broken file cannot exhaust memory.
+    public static final int MAX_RECORDED_ERRORS = 1000;
+
+    private final long imported;
+    private final long rejected;
+    private final List<RowError> errors;
+
+    public ImportReport(long imported, long rejected, List<RowError> errors) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{imported=" + imported + ", rejected=" + rejected + "}";
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class IndexedExpenseStore implements ExpenseStore {
+    private final Map<String, Expense> expensesById = new HashMap<>();
+    private final Map<String, UserExpenses> expensesByUser = new HashMap<>();
+    private final CategoryDictionary categories = new CategoryDictionary();
+
+    @Override
+    public void add(Expense expense) {
+        if (expensesById.containsKey(expense.getId())) {
+            throw new IllegalArgumentException("Expense with ID " + expense.getId() + " already exists");
+        }
+        expensesById.put(expense.getId(), expense);
+        expensesByUser.computeIfAbsent(expense.getUserId(), k -> new UserExpenses())
+                .add(expense, categories.intern(expense.getCategory()));
+    }
+
+    // Resolves each user's index and each category ID once per batch instead of once per row.
+    @Override
+    public List<Expense> addAll(List<Expense> expenses) {
+        List<Expense> duplicates = new ArrayList<>();
+        Map<String, List<Expense>> acceptedByUser = new LinkedHashMap<>();
+        for (Expense expense : expenses) {
+            if (expensesById.putIfAbsent(expense.getId(), expense) != null) {
+                duplicates.add(expense);
+            } else {
+                acceptedByUser.computeIfAbsent(expense.getUserId(), k -> new ArrayList<>()).add(expense);
+            }
+        }
+        Map<String, Integer> categoryIds = new HashMap<>();
+        for (Map.Entry<String, List<Expense>> entry : acceptedByUser.entrySet()) {
+            UserExpenses userExpenses = expensesByUser.computeIfAbsent(entry.getKey(), k -> new UserExpenses());
+            for (Expense expense : entry.getValue()) {
+                userExpenses.add(expense, categoryIds.computeIfAbsent(expense.getCategory(), categories::intern));
+            }
+        }
+        return duplicates;
+    }
+
+    @Override
+    public Expense remove(String expenseId) {
+        Expense expense = expensesById.remove(expenseId);
+        if (expense == null) {
+            return null;
+        }
+        UserExpenses userExpenses = expensesByUser.get(expense.getUserId());
+        userExpenses.remove(expenseId, categories.lookup(expense.getCategory()));
+        if (userExpenses.isEmpty()) {
+            expensesByUser.remove(expense.getUserId());
+        }
+        return expense;
+    }
+
+    @Override
+    public Expense get(String expenseId) {
+        return expensesById.get(expenseId);
+    }
+
+    @Override
+    public List<Expense> findByUser(String userId) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        return userExpenses == null ? new ArrayList<>() : new ArrayList<>(userExpenses.all());
+    }
+
+    @Override
+    public List<Expense> findByCategory(String userId, String category) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        int categoryId = categories.lookup(category);
+        if (userExpenses == null || categoryId == CategoryDictionary.UNKNOWN) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(userExpenses.inCategory(categoryId));
+    }
+
+    @Override
+    public List<Expense> findByDateRange(String userId, long startTime, long endTime) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        if (userExpenses == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(userExpenses.between(startTime, endTime));
+    }
+
+    @Override
+    public List<Expense> findPage(String userId, String category, long startTime, long endTime,
+                                  long afterTime, String afterId, int limit) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        List<Expense> page = new ArrayList<>();
+        Integer categoryId = null;
+        if (category != null) {
+            categoryId = categories.lookup(category);
+            if (categoryId == CategoryDictionary.UNKNOWN) {
+                return page;
+            }
+        }
+        if (userExpenses == null) {
+            return page;
+        }
+        Iterator<Expense> iterator = userExpenses.after(categoryId, startTime, endTime, afterTime, afterId).iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    // The stream reads the live indexes lazily, so it must be consumed before the store changes.
+    @Override
+    public Stream<Expense> query(ExpenseQuery query) {
+        UserExpenses userExpenses = expensesByUser.get(query.getUserId());
+        Integer categoryId = null;
+        if (query.getCategory() != null) {
+            categoryId = categories.lookup(query.getCategory());
+            if (categoryId == CategoryDictionary.UNKNOWN) {
+                return Stream.empty();
+            }
+        }
+        return userExpenses == null ? Stream.empty() : userExpenses.query(categoryId, query);
+    }
+
+    @Override
+    public List<Expense> findByAmount(String userId, boolean descending, int offset, int limit) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        List<Expense> page = new ArrayList<>();
+        if (userExpenses == null) {
+            return page;
+        }
+        Iterator<Expense> iterator = userExpenses.byAmount(descending).iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    @Override
+    public long[] amountsInCents(String userId) {
+        UserExpenses userExpenses = expensesByUser.get(userId);
+        if (userExpenses == null) {
+            return new long[0];
+        }
+        long[] amounts = new long[userExpenses.size()];
+        int i = 0;
+        for (Expense expense : userExpenses.all()) {
+            amounts[i++] = expense.getAmountInCents();
+        }
+        return amounts;
+    }
+
+    @Override
+    public int userCount() {
+        return expensesByUser.size();
+    }
+
+    @Override
+    public int size() {
+        return expensesById.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Expense> action) {
+        expensesById.values().forEach(action);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+// Bucket layout shared by AmountHistogram and LatencyHistogram, in the style of HdrHistogram.
+// With b sub-bucket bits, values below 2^b get a bucket each and every higher power of two is
+// split into 2^b equal buckets, so a bucket's midpoint is within 1/2^(b+1) of any value in it.
+final class LogLinearBuckets {
+    private LogLinearBuckets() {
+    }
+
+    static int indexOf(long value, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        int subBucket = (int) (value >>> shift) - subBucketCount;
+        return subBucketCount * (shift + 1) + subBucket;
+    }
+
+    static long midpointOf(int index, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketCount - 1;
+        long lowest = (long) (subBucketCount + index % subBucketCount) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    // Buckets needed to index every non-negative long.
+    static int bucketCount(int subBucketBits) {
+        return (1 << subBucketBits) * (64 - subBucketBits);
+    }
+}
@@ -1,6 +1,16 @@
 
 package org.example;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -18,7 +28,51 @@ public class Main {
         scanner = customScanner; // Set custom Scanner for tests
     }
 
+    // Usage: [--ledger <file>] [--batch <script|->] | --http <port>. Without --batch the
+    // interactive menu runs; with it, commands are read from the script (or stdin for "-"),
+    // see BatchRunner. --http serves ExpenseHttpServer until the process is stopped.
     public static void main(String[] args) {
+        String ledgerPath = null;
+        String batchSource = null;
+        String httpPort = null;
+        boolean validArgs = true;
+        for (int i = 0; i < args.length && validArgs; i++) {
+            if (i + 1 < args.length && "--ledger".equals(args[i])) {
+                ledgerPath = args[++i];
+            } else if (i + 1 < args.length && "--batch".equals(args[i])) {
+                batchSource = args[++i];
+            } else if (i + 1 < args.length && "--http".equals(args[i])) {
+                httpPort = args[++i];
+            } else {
+                validArgs = false;
+            }
+        }
+        if (!validArgs || (httpPort != null && (ledgerPath != null || batchSource != null))) {
+            System.out.println("Usage: [--ledger <file>] [--batch <script|->] | --http <port>");
+            return;
+        }
+        if (httpPort != null) {
+            startHttpServer(httpPort);
+            return;
+        }
+        MappedExpenseStore ledger = null;
+        if (ledgerPath != null) {
+            try {
+                ledger = new MappedExpenseStore(Paths.get(ledgerPath));
+            } catch (IOException e) {
+                System.out.println("Error opening ledger: " + e.getMessage());
+                return;
+            }
+            expenseManager = new ExpenseManager(ledger);
+        }
+        if (batchSource != null) {
+            try {
+                runBatch(batchSource);
+            } finally {
+                closeLedger(ledger);
+            }
+            return;
+        }
         try {
             boolean continueRunning = true;
             while (continueRunning) {
@@ -39,6 +93,53 @@ public class Main {
             }
         } finally {
             scanner.close();
+            closeLedger(ledger);
+        }
+    }
+
+    // Results go through one buffered writer on stdout; the throughput summary goes to stderr
+    // so it never mixes with output a script may parse.
+    static void runBatch(String source) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        BatchRunner runner = new BatchRunner(expenseManager, statisticsManager, out);
+        try (BufferedReader in = "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            runner.run(in);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error running batch: " + e.getMessage());
+        }
+        System.err.println(runner.summary());
+    }
+
+    // The server's dispatcher thread keeps the JVM running after main returns. Requests mutate
+    // the concurrent store in parallel; ExpenseManager applies each ID's change and notifies the
+    // statistics listener under one lock, so /statistics stays in step with the store.
+    static void startHttpServer(String port) {
+        ExpenseManager manager = new ExpenseManager(new ConcurrentExpenseStore());
+        StatisticsManager statistics = new StatisticsManager();
+        manager.addListener(statistics);
+        try {
+            ExpenseHttpServer server = new ExpenseHttpServer(manager, statistics, new ExportManager(),
+                    new InetSocketAddress(Integer.parseInt(port)));
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "expense-http-shutdown"));
+            System.out.println("Listening on port " + server.getAddress().getPort());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port: " + port);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error starting HTTP server: " + e.getMessage());
+        }
+    }
+
+    private static void closeLedger(MappedExpenseStore ledger) {
+        if (ledger == null) {
+            return;
+        }
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            System.out.println("Error closing ledger: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,288 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+public class MappedExpenseStore implements ExpenseStore, Closeable {
+    static final int RECORD_SIZE = 256;
+    static final int MAX_FIELD_BYTES = 64;
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+    private static final int MAGIC = 0x4558504C; // "EXPL"
+    private static final int VERSION = 1;
+
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    // Slot 0 holds the file header; expense records start at slot 1.
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOTS = 8;
+
+    private static final int STATUS = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int CENTS = 16;
+    private static final int ID = 24;
+    private static final int USER_ID = ID + 2 + MAX_FIELD_BYTES;
+    private static final int CATEGORY = USER_ID + 2 + MAX_FIELD_BYTES;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int slotCount;
+    private int liveCount;
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<String, IntList> slotsByUser = new HashMap<>();
+
+    public MappedExpenseStore(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Ledger path cannot be null");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = segment(0);
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_SLOTS, 1);
+        } else {
+            checkHeader(path);
+        }
+        slotCount = segment(0).getInt(HEADER_SLOTS);
+        rebuildIndex();
+    }
+
+    @Override
+    public void validate(Expense expense) {
+        encode(expense.getId(), "Expense ID");
+        encode(expense.getUserId(), "User ID");
+        encode(expense.getCategory(), "Category");
+    }
+
+    @Override
+    public void add(Expense expense) {
+        if (slotsById.containsKey(expense.getId())) {
+            throw new IllegalArgumentException("Expense with ID " + expense.getId() + " already exists");
+        }
+        byte[] id = encode(expense.getId(), "Expense ID");
+        byte[] userId = encode(expense.getUserId(), "User ID");
+        byte[] category = encode(expense.getCategory(), "Category");
+
+        if (slotCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Ledger is full");
+        }
+        int slot = slotCount;
+        ByteBuffer buffer = segmentFor(slot);
+        int offset = offsetOf(slot);
+        buffer.putLong(offset + TIMESTAMP, expense.getTimestamp());
+        buffer.putLong(offset + CENTS, expense.getAmountInCents());
+        writeField(buffer, offset + ID, id);
+        writeField(buffer, offset + USER_ID, userId);
+        writeField(buffer, offset + CATEGORY, category);
+        buffer.put(offset + STATUS, LIVE);
+
+        slotCount = slot + 1;
+        segment(0).putInt(HEADER_SLOTS, slotCount);
+        index(slot, expense.getId(), expense.getUserId());
+    }
+
+    @Override
+    public Expense remove(String expenseId) {
+        Integer slot = slotsById.remove(expenseId);
+        if (slot == null) {
+            return null;
+        }
+        Expense expense = materialize(slot);
+        segmentFor(slot).put(offsetOf(slot) + STATUS, DELETED);
+        IntList userSlots = slotsByUser.get(expense.getUserId());
+        userSlots.removeSorted(slot);
+        if (userSlots.isEmpty()) {
+            slotsByUser.remove(expense.getUserId());
+        }
+        liveCount--;
+        return expense;
+    }
+
+    @Override
+    public Expense get(String expenseId) {
+        Integer slot = slotsById.get(expenseId);
+        return slot == null ? null : materialize(slot);
+    }
+
+    @Override
+    public List<Expense> findByUser(String userId) {
+        IntList slots = slotsOf(userId);
+        List<Expense> result = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            result.add(materialize(slots.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Expense> findByCategory(String userId, String category) {
+        IntList slots = slotsOf(userId);
+        String key = CategoryDictionary.normalize(category);
+        List<Expense> result = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            ByteBuffer buffer = segmentFor(slot);
+            if (CategoryDictionary.sameCategory(key, readField(buffer, offsetOf(slot) + CATEGORY))) {
+                result.add(materialize(slot));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Expense> findByDateRange(String userId, long startTime, long endTime) {
+        IntList slots = slotsOf(userId);
+        List<Expense> result = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            long timestamp = segmentFor(slot).getLong(offsetOf(slot) + TIMESTAMP);
+            if (timestamp >= startTime && timestamp <= endTime) {
+                result.add(materialize(slot));
+            }
+        }
+        result.sort(Comparator.comparingLong(Expense::getTimestamp).thenComparing(Expense::getId));
+        return result;
+    }
+
+    @Override
+    public long[] amountsInCents(String userId) {
+        IntList slots = slotsOf(userId);
+        long[] amounts = new long[slots.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            int slot = slots.get(i);
+            amounts[i] = segmentFor(slot).getLong(offsetOf(slot) + CENTS);
+        }
+        return amounts;
+    }
+
+    @Override
+    public int userCount() {
+        return slotsByUser.size();
+    }
+
+    @Override
+    public int size() {
+        return liveCount;
+    }
+
+    @Override
+    public void forEach(Consumer<Expense> action) {
+        for (int slot = 1; slot < slotCount; slot++) {
+            if (segmentFor(slot).get(offsetOf(slot) + STATUS) == LIVE) {
+                action.accept(materialize(slot));
+            }
+        }
+    }
+
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        segments.clear();
+        channel.close();
+    }
+
+    // Read through the channel first so a foreign file is never grown by mapping it.
+    private void checkHeader(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        channel.read(header, 0);
+        if (header.position() < 8 || header.getInt(HEADER_MAGIC) != MAGIC
+                || header.getInt(HEADER_VERSION) != VERSION) {
+            channel.close();
+            throw new IOException("Not an expense ledger: " + path);
+        }
+    }
+
+    private void rebuildIndex() {
+        for (int slot = 1; slot < slotCount; slot++) {
+            ByteBuffer buffer = segmentFor(slot);
+            int offset = offsetOf(slot);
+            if (buffer.get(offset + STATUS) == LIVE) {
+                index(slot, readField(buffer, offset + ID), readField(buffer, offset + USER_ID));
+            }
+        }
+    }
+
+    private void index(int slot, String expenseId, String userId) {
+        slotsById.put(expenseId, slot);
+        slotsByUser.computeIfAbsent(userId, k -> new IntList()).add(slot);
+        liveCount++;
+    }
+
+    private IntList slotsOf(String userId) {
+        IntList slots = slotsByUser.get(userId);
+        return slots == null ? new IntList(1) : slots;
+    }
+
+    private Expense materialize(int slot) {
+        ByteBuffer buffer = segmentFor(slot);
+        int offset = offsetOf(slot);
+        return Expense.ofCents(
+                readField(buffer, offset + ID),
+                readField(buffer, offset + USER_ID),
+                readField(buffer, offset + CATEGORY),
+                buffer.getLong(offset + CENTS),
+                new Date(buffer.getLong(offset + TIMESTAMP)));
+    }
+
+    private ByteBuffer segmentFor(int slot) {
+        return segment(slot / RECORDS_PER_SEGMENT);
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer segment(int index) {
+        try {
+            while (segments.size() <= index) {
+                long position = (long) segments.size() * SEGMENT_SIZE;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_SIZE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map ledger segment " + index, e);
+        }
+        return segments.get(index);
+    }
+
+    private static byte[] encode(String value, String field) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException(field + " cannot exceed " + MAX_FIELD_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void writeField(ByteBuffer buffer, int offset, byte[] bytes) {
+        buffer.putShort(offset, (short) bytes.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + 2);
+        target.put(bytes);
+    }
+
+    private static String readField(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset)];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset + 2);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
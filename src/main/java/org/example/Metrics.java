@@ -0,0 +1,177 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Registry of operation timers and size gauges. DISABLED hands out a no-op timer and drops
+// gauges, so components built without metrics pay almost nothing. Gauges are sampled only
+// when read (MBean attribute, report), never on the hot path.
+public class Metrics implements MetricsMXBean, Closeable {
+    public static final Metrics DISABLED = new Metrics(false);
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, OperationTimer> timers = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private String domain;
+    private ScheduledExecutorService reporter;
+
+    public Metrics() {
+        this(true);
+    }
+
+    private Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OperationTimer timer(String name) {
+        if (!enabled) {
+            return OperationTimer.DISABLED;
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Timer name cannot be null or empty");
+        }
+        OperationTimer timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        OperationTimer created = new OperationTimer(name);
+        timer = timers.putIfAbsent(name, created);
+        if (timer != null) {
+            return timer;
+        }
+        registerIfPublished(created);
+        return created;
+    }
+
+    // A later gauge with the same name replaces the earlier one.
+    public void gauge(String name, LongSupplier supplier) {
+        if (!enabled) {
+            return;
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Gauge name cannot be null or empty");
+        }
+        if (supplier == null) {
+            throw new IllegalArgumentException("Gauge supplier cannot be null");
+        }
+        gauges.put(name, supplier);
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        return values;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Long> gauge : getGauges().entrySet()) {
+            report.append(gauge.getKey()).append(' ').append(gauge.getValue()).append(System.lineSeparator());
+        }
+        for (OperationTimer timer : timers.values()) {
+            report.append(timer).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    // Publishes this registry as <domain>:type=Metrics and each timer, including ones created
+    // later, as <domain>:type=Operation,name=<timer> on the platform MBean server.
+    public synchronized void registerMBeans(String domain) throws JMException {
+        if (!enabled) {
+            return;
+        }
+        if (domain == null || domain.trim().isEmpty()) {
+            throw new IllegalArgumentException("MBean domain cannot be null or empty");
+        }
+        if (this.domain != null) {
+            throw new IllegalStateException("MBeans are already registered under " + this.domain);
+        }
+        this.domain = domain;
+        register(new ObjectName(domain + ":type=Metrics"), this);
+        for (OperationTimer timer : timers.values()) {
+            register(timerName(timer), timer);
+        }
+    }
+
+    public synchronized void startReporter(long period, TimeUnit unit, PrintStream out) {
+        if (!enabled) {
+            return;
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Report period must be positive");
+        }
+        if (unit == null || out == null) {
+            throw new IllegalArgumentException("Report unit and stream cannot be null");
+        }
+        if (reporter != null) {
+            throw new IllegalStateException("Reporter is already running");
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.print(getReport()), period, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // Already gone; nothing left to clean up.
+            }
+        }
+        registeredNames.clear();
+        domain = null;
+    }
+
+    private synchronized void registerIfPublished(OperationTimer timer) {
+        if (domain == null) {
+            return;
+        }
+        try {
+            register(timerName(timer), timer);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean for timer " + timer.getName(), e);
+        }
+    }
+
+    private ObjectName timerName(OperationTimer timer) throws JMException {
+        return new ObjectName(domain + ":type=Operation,name=" + ObjectName.quote(timer.getName()));
+    }
+
+    private void register(ObjectName name, Object mbean) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+        registeredNames.add(name);
+    }
+}
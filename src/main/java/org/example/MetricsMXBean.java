@@ -0,0 +1,9 @@
+package org.example;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+    Map<String, Long> getGauges();
+
+    String getReport();
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+// Times one named operation:
+//     long start = timer.start();
+//     try { ... } finally { timer.stop(start); }
+// The disabled timer skips the clock reads, so instrumented code pays one predictable branch.
+public final class OperationTimer implements OperationTimerMXBean {
+    static final OperationTimer DISABLED = new OperationTimer("disabled", null);
+
+    private final String name;
+    private final LatencyHistogram histogram;
+
+    OperationTimer(String name) {
+        this(name, new LatencyHistogram());
+    }
+
+    private OperationTimer(String name, LatencyHistogram histogram) {
+        this.name = name;
+        this.histogram = histogram;
+    }
+
+    public long start() {
+        return histogram == null ? 0 : System.nanoTime();
+    }
+
+    public void stop(long startNanos) {
+        if (histogram != null) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : histogram.getTotalNanos() / 1_000.0 / count;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentileMicros(90);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram == null ? 0 : histogram.getMaxNanos() / 1_000.0;
+    }
+
+    private double percentileMicros(double percentile) {
+        return histogram == null ? 0 : histogram.valueAtPercentile(percentile) / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                name, getCount(), getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,17 @@
+package org.example;
+
+public interface OperationTimerMXBean {
+    String getName();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
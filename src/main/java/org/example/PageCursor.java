@@ -0,0 +1,51 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Position of the last row on a page, as (timestamp, id). Encoded as URL-safe base64 so
+// callers treat it as an opaque token.
+final class PageCursor {
+    private final long timestamp;
+    private final String id;
+
+    PageCursor(long timestamp, String id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    static PageCursor after(Expense expense) {
+        return new PageCursor(expense.getTimestamp(), expense.getId());
+    }
+
+    static PageCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        if (bytes.length <= Long.BYTES) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long timestamp = buffer.getLong();
+        return new PageCursor(timestamp, new String(bytes, Long.BYTES, bytes.length - Long.BYTES, StandardCharsets.UTF_8));
+    }
+
+    String encode() {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + idBytes.length);
+        buffer.putLong(timestamp).put(idBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    String getId() {
+        return id;
+    }
+}
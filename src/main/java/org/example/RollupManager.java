@@ -0,0 +1,172 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per (user, category, day) and (user, category, month) count and total, kept current as an
+// ExpenseListener so a time series reads one cell per bucket instead of every expense.
+public class RollupManager implements ExpenseListener {
+    public enum Granularity {
+        DAY, MONTH
+    }
+
+    private final TimeZone timeZone;
+    private final ZoneId zone;
+    private final ConcurrentMap<String, UserRollups> rollupsByUser = new ConcurrentHashMap<>();
+    private final LongAdder unmatchedRemovals = new LongAdder();
+
+    public RollupManager() {
+        this(TimeZone.getDefault());
+    }
+
+    public RollupManager(TimeZone timeZone) {
+        if (timeZone == null) {
+            throw new IllegalArgumentException("Time zone cannot be null");
+        }
+        this.timeZone = (TimeZone) timeZone.clone();
+        this.zone = timeZone.toZoneId();
+    }
+
+    @Override
+    public void expenseAdded(Expense expense) {
+        String category = CategoryDictionary.normalize(expense.getCategory());
+        rollupsByUser.computeIfAbsent(expense.getUserId(), k -> new UserRollups())
+                .add(category, epochDay(expense.getTimestamp()), expense.getAmountInCents());
+    }
+
+    @Override
+    public void expenseRemoved(Expense expense) {
+        UserRollups rollups = rollupsByUser.get(expense.getUserId());
+        String category = CategoryDictionary.normalize(expense.getCategory());
+        if (rollups == null
+                || !rollups.remove(category, epochDay(expense.getTimestamp()), expense.getAmountInCents())) {
+            unmatchedRemovals.increment();
+        }
+    }
+
+    // Removals that matched no cell; non-zero means the rollups no longer match the store.
+    public long getUnmatchedRemovalCount() {
+        return unmatchedRemovals.sum();
+    }
+
+    // Non-empty buckets overlapping [startDate, endDate], oldest first. A null category sums
+    // every category of the user.
+    public List<RollupPoint> getSeries(String userId, String category, Granularity granularity,
+                                       Date startDate, Date endDate) {
+        if (granularity == null) {
+            throw new IllegalArgumentException("Granularity cannot be null");
+        }
+        if (userId == null || startDate == null || endDate == null) {
+            return new ArrayList<>();
+        }
+        UserRollups rollups = rollupsByUser.get(userId);
+        long first = bucket(granularity, epochDay(startDate.getTime()));
+        long last = bucket(granularity, epochDay(endDate.getTime()));
+        if (rollups == null || first > last) {
+            return new ArrayList<>();
+        }
+        SortedMap<Long, long[]> cells = rollups.range(category == null ? null : CategoryDictionary.normalize(category),
+                granularity, first, last);
+        List<RollupPoint> series = new ArrayList<>(cells.size());
+        for (Map.Entry<Long, long[]> cell : cells.entrySet()) {
+            series.add(new RollupPoint(bucketStart(granularity, cell.getKey()), cell.getValue()[0], cell.getValue()[1]));
+        }
+        return series;
+    }
+
+    public List<RollupPoint> getMonthlySeries(String userId, String category, Date startDate, Date endDate) {
+        return getSeries(userId, category, Granularity.MONTH, startDate, endDate);
+    }
+
+    public List<RollupPoint> getDailySeries(String userId, String category, Date startDate, Date endDate) {
+        return getSeries(userId, category, Granularity.DAY, startDate, endDate);
+    }
+
+    private long epochDay(long millis) {
+        return Math.floorDiv(millis + timeZone.getOffset(millis), 86_400_000L);
+    }
+
+    private static long bucket(Granularity granularity, long epochDay) {
+        if (granularity == Granularity.DAY) {
+            return epochDay;
+        }
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    private long bucketStart(Granularity granularity, long bucket) {
+        LocalDate date = granularity == Granularity.DAY ? LocalDate.ofEpochDay(bucket)
+                : LocalDate.of((int) Math.floorDiv(bucket, 12L), (int) Math.floorMod(bucket, 12L) + 1, 1);
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static final class UserRollups {
+        // category -> bucket -> {count, totalInCents}
+        private final Map<String, TreeMap<Long, long[]>> days = new HashMap<>();
+        private final Map<String, TreeMap<Long, long[]>> months = new HashMap<>();
+
+        synchronized void add(String category, long epochDay, long amountInCents) {
+            apply(days, category, epochDay, 1, amountInCents);
+            apply(months, category, bucket(Granularity.MONTH, epochDay), 1, amountInCents);
+        }
+
+        // Day and month cells are created and emptied together, so the day cell alone tells
+        // whether the removed expense was ever counted.
+        synchronized boolean remove(String category, long epochDay, long amountInCents) {
+            if (!apply(days, category, epochDay, -1, -amountInCents)) {
+                return false;
+            }
+            apply(months, category, bucket(Granularity.MONTH, epochDay), -1, -amountInCents);
+            return true;
+        }
+
+        synchronized SortedMap<Long, long[]> range(String category, Granularity granularity, long first, long last) {
+            Map<String, TreeMap<Long, long[]>> table = granularity == Granularity.DAY ? days : months;
+            TreeMap<Long, long[]> merged = new TreeMap<>();
+            for (Map.Entry<String, TreeMap<Long, long[]>> entry : table.entrySet()) {
+                if (category != null && !category.equals(entry.getKey())) {
+                    continue;
+                }
+                for (Map.Entry<Long, long[]> cell : entry.getValue().subMap(first, true, last, true).entrySet()) {
+                    long[] total = merged.computeIfAbsent(cell.getKey(), k -> new long[2]);
+                    total[0] += cell.getValue()[0];
+                    total[1] = Math.addExact(total[1], cell.getValue()[1]);
+                }
+            }
+            return merged;
+        }
+
+        private static boolean apply(Map<String, TreeMap<Long, long[]>> table, String category, long bucket,
+                                     long countDelta, long centsDelta) {
+            TreeMap<Long, long[]> series = table.get(category);
+            if (series == null) {
+                if (countDelta < 0) {
+                    return false;
+                }
+                series = new TreeMap<>();
+                table.put(category, series);
+            }
+            long[] cell = series.get(bucket);
+            if (cell == null) {
+                if (countDelta < 0) {
+                    return false;
+                }
+                cell = new long[2];
+                series.put(bucket, cell);
+            }
+            cell[0] += countDelta;
+            cell[1] = Math.addExact(cell[1], centsDelta);
+            if (cell[0] == 0) {
+                series.remove(bucket);
+                if (series.isEmpty()) {
+                    table.remove(category);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import java.util.Date;
+import java.util.Objects;
+
+public class RollupPoint {
+    private final long bucketStart;
+    private final long count;
+    private final long totalInCents;
+
+    public RollupPoint(long bucketStart, long count, long totalInCents) {
+        this.bucketStart = bucketStart;
+        this.count = count;
+        this.totalInCents = totalInCents;
+    }
+
+    public Date getBucketStart() {
+        return new Date(bucketStart);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalInCents() {
+        return totalInCents;
+    }
+
+    public double getTotal() {
+        return totalInCents / 100.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RollupPoint that = (RollupPoint) o;
+        return bucketStart == that.bucketStart && count == that.count && totalInCents == that.totalInCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucketStart, count, totalInCents);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RollupPoint{bucketStart=%s, count=%d, total=%.2f}",
+                getBucketStart(), count, getTotal());
+    }
+}
@@ -1,41 +1,250 @@
 package org.example;
 
+import java.util.HashMap;
 import java.util.List;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
-public class StatisticsManager {
-    private static final int DECIMAL_PLACES = 2;
+public class StatisticsManager implements ExpenseListener {
+    private static final AmountHistogram EMPTY_HISTOGRAM = new AmountHistogram();
+
+    private final ConcurrentMap<String, RunningTotals> totalsByUser = new ConcurrentHashMap<>();
+    private final LongAdder unmatchedRemovals = new LongAdder();
+    private final OperationTimer totalTimer;
+    private final OperationTimer maxTimer;
+    private final OperationTimer averageTimer;
+
+    public StatisticsManager() {
+        this(Metrics.DISABLED);
+    }
+
+    public StatisticsManager(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.totalTimer = metrics.timer("statistics.calculateTotal");
+        this.maxTimer = metrics.timer("statistics.calculateMax");
+        this.averageTimer = metrics.timer("statistics.calculateAverage");
+        metrics.gauge("statistics.trackedUsers", totalsByUser::size);
+    }
 
     public double calculateTotal(List<Expense> expenses) {
-        if (expenses == null) {
-            throw new IllegalArgumentException("Expenses list cannot be null");
+        long start = totalTimer.start();
+        try {
+            return sumOfCents(expenses) / 100.0;
+        } finally {
+            totalTimer.stop(start);
         }
-        BigDecimal total = expenses.stream()
-                .map(e -> BigDecimal.valueOf(e.getAmount()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        return total.setScale(DECIMAL_PLACES, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    public long calculateTotalInCents(List<Expense> expenses) {
+        return sumOfCents(expenses);
     }
 
     public double calculateMax(List<Expense> expenses) {
         if (expenses == null) {
             throw new IllegalArgumentException("Expenses list cannot be null");
         }
-        return expenses.stream()
-                .mapToDouble(Expense::getAmount)
-                .max()
-                .orElse(0.0);
+        long start = maxTimer.start();
+        try {
+            long max = 0;
+            for (Expense expense : expenses) {
+                max = Math.max(max, expense.getAmountInCents());
+            }
+            return max / 100.0;
+        } finally {
+            maxTimer.stop(start);
+        }
     }
 
     public double calculateAverage(List<Expense> expenses) {
+        long start = averageTimer.start();
+        try {
+            long total = sumOfCents(expenses);
+            if (expenses.isEmpty()) {
+                return 0.0;
+            }
+            return averageOfCents(total, expenses.size()) / 100.0;
+        } finally {
+            averageTimer.stop(start);
+        }
+    }
+
+    public double totalOfCents(long[] amountsInCents) {
+        return sumOfCents(amountsInCents) / 100.0;
+    }
+
+    public double maxOfCents(long[] amountsInCents) {
+        if (amountsInCents == null) {
+            throw new IllegalArgumentException("Amounts array cannot be null");
+        }
+        long max = 0;
+        for (long amount : amountsInCents) {
+            max = Math.max(max, amount);
+        }
+        return max / 100.0;
+    }
+
+    public double averageOfCents(long[] amountsInCents) {
+        long total = sumOfCents(amountsInCents);
+        if (amountsInCents.length == 0) {
+            return 0.0;
+        }
+        return averageOfCents(total, amountsInCents.length) / 100.0;
+    }
+
+    // Rounds HALF_UP like the two-decimal BigDecimal division it replaces; totals are never negative.
+    static long averageOfCents(long totalInCents, long count) {
+        long quotient = totalInCents / count;
+        long remainder = totalInCents % count;
+        return remainder >= count - remainder ? quotient + 1 : quotient;
+    }
+
+    // Math.addExact throws ArithmeticException instead of silently wrapping.
+    private static long sumOfCents(List<Expense> expenses) {
         if (expenses == null) {
             throw new IllegalArgumentException("Expenses list cannot be null");
         }
-        if (expenses.isEmpty()) {
-            return 0.0;
+        long total = 0;
+        for (Expense expense : expenses) {
+            total = Math.addExact(total, expense.getAmountInCents());
+        }
+        return total;
+    }
+
+    private static long sumOfCents(long[] amountsInCents) {
+        if (amountsInCents == null) {
+            throw new IllegalArgumentException("Amounts array cannot be null");
+        }
+        long total = 0;
+        for (long amount : amountsInCents) {
+            total = Math.addExact(total, amount);
+        }
+        return total;
+    }
+
+    @Override
+    public void expenseAdded(Expense expense) {
+        totalsByUser.computeIfAbsent(expense.getUserId(), k -> new RunningTotals())
+                .add(CategoryDictionary.normalize(expense.getCategory()), expense.getAmountInCents());
+    }
+
+    @Override
+    public void expenseRemoved(Expense expense) {
+        RunningTotals totals = totalsByUser.get(expense.getUserId());
+        String category = CategoryDictionary.normalize(expense.getCategory());
+        if (totals == null || !totals.remove(category, expense.getAmountInCents())) {
+            unmatchedRemovals.increment();
+        }
+    }
+
+    // Removals of expenses these totals never saw, for example when the listener was attached
+    // to a manager that already held rows. Non-zero means the totals no longer match the store.
+    public long getUnmatchedRemovalCount() {
+        return unmatchedRemovals.sum();
+    }
+
+    public UserStatistics getUserStatistics(String userId) {
+        if (userId == null) {
+            return UserStatistics.EMPTY;
+        }
+        RunningTotals totals = totalsByUser.get(userId);
+        return totals == null ? UserStatistics.EMPTY : totals.snapshot();
+    }
+
+    // Percentiles come from histograms maintained on ingest; see AmountHistogram for the
+    // error bound. Returned histograms are copies and can be merged across managers or shards.
+    public AmountHistogram getUserHistogram(String userId) {
+        RunningTotals totals = userId == null ? null : totalsByUser.get(userId);
+        return totals == null ? new AmountHistogram() : totals.histogram(null);
+    }
+
+    public AmountHistogram getCategoryHistogram(String userId, String category) {
+        RunningTotals totals = userId == null || category == null ? null : totalsByUser.get(userId);
+        return totals == null ? new AmountHistogram() : totals.histogram(CategoryDictionary.normalize(category));
+    }
+
+    public double getUserPercentile(String userId, double percentile) {
+        RunningTotals totals = userId == null ? null : totalsByUser.get(userId);
+        return totals == null ? EMPTY_HISTOGRAM.valueAtPercentile(percentile)
+                : totals.percentile(null, percentile) / 100.0;
+    }
+
+    public double getCategoryPercentile(String userId, String category, double percentile) {
+        RunningTotals totals = userId == null || category == null ? null : totalsByUser.get(userId);
+        return totals == null ? EMPTY_HISTOGRAM.valueAtPercentile(percentile)
+                : totals.percentile(CategoryDictionary.normalize(category), percentile) / 100.0;
+    }
+
+    // Changes whenever the user's totals change and never repeats, so results derived from
+    // them can be cached against it; see ExpenseQueryCache.
+    long version(String userId) {
+        RunningTotals totals = userId == null ? null : totalsByUser.get(userId);
+        return totals == null ? 0 : totals.version();
+    }
+
+    // Amounts are kept as a multiset so max and min stay exact after removals.
+    private static final class RunningTotals {
+        private final TreeMap<Long, Integer> amounts = new TreeMap<>();
+        private final AmountHistogram histogram = new AmountHistogram();
+        private final Map<String, AmountHistogram> histogramsByCategory = new HashMap<>();
+        private long count;
+        private long totalInCents;
+        private long version;
+
+        synchronized void add(String category, long amountInCents) {
+            amounts.merge(amountInCents, 1, Integer::sum);
+            count++;
+            totalInCents = Math.addExact(totalInCents, amountInCents);
+            histogram.record(amountInCents);
+            histogramsByCategory.computeIfAbsent(category, k -> new AmountHistogram()).record(amountInCents);
+            version++;
+        }
+
+        synchronized boolean remove(String category, long amountInCents) {
+            Integer occurrences = amounts.get(amountInCents);
+            if (occurrences == null) {
+                return false;
+            }
+            if (occurrences == 1) {
+                amounts.remove(amountInCents);
+            } else {
+                amounts.put(amountInCents, occurrences - 1);
+            }
+            count--;
+            totalInCents -= amountInCents;
+            histogram.remove(amountInCents);
+            AmountHistogram categoryHistogram = histogramsByCategory.get(category);
+            if (categoryHistogram != null && categoryHistogram.remove(amountInCents) && categoryHistogram.isEmpty()) {
+                histogramsByCategory.remove(category);
+            }
+            version++;
+            return true;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        // Reads the live histogram under the lock instead of copying it.
+        synchronized long percentile(String category, double percentile) {
+            AmountHistogram source = category == null ? histogram : histogramsByCategory.get(category);
+            return (source == null ? EMPTY_HISTOGRAM : source).valueAtPercentile(percentile);
+        }
+
+        synchronized AmountHistogram histogram(String category) {
+            AmountHistogram source = category == null ? histogram : histogramsByCategory.get(category);
+            return source == null ? new AmountHistogram() : new AmountHistogram(source);
+        }
+
+        synchronized UserStatistics snapshot() {
+            if (count == 0) {
+                return UserStatistics.EMPTY;
+            }
+            return new UserStatistics(count, totalInCents, amounts.lastKey(), amounts.firstKey());
         }
-        BigDecimal total = BigDecimal.valueOf(calculateTotal(expenses));
-        BigDecimal count = BigDecimal.valueOf(expenses.size());
-        return total.divide(count, DECIMAL_PLACES, RoundingMode.HALF_UP).doubleValue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package org.example;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+class UserExpenses {
+    private final Map<String, Expense> byId = new LinkedHashMap<>();
+    private final NavigableMap<OrderKey, Expense> byDate = new TreeMap<>();
+    private final NavigableMap<OrderKey, Expense> byAmount = new TreeMap<>();
+    // Posting lists per category, in date order, keyed by the dictionary's int ID. A user has
+    // few categories, so the IDs sit sorted in an int[] beside their indexes instead of boxed in
+    // a map. The date key is shared with byDate, so a row costs one entry here and no new key.
+    private int[] categoryIds = new int[0];
+    private final List<NavigableMap<OrderKey, Expense>> byCategoryDate = new ArrayList<>();
+
+    void add(Expense expense, int categoryId) {
+        OrderKey dateKey = new OrderKey(expense.getTimestamp(), expense.getId());
+        byId.put(expense.getId(), expense);
+        byDate.put(dateKey, expense);
+        byAmount.put(new OrderKey(expense.getAmountInCents(), expense.getId()), expense);
+        int slot = Arrays.binarySearch(categoryIds, categoryId);
+        if (slot < 0) {
+            slot = -slot - 1;
+            int[] grown = new int[categoryIds.length + 1];
+            System.arraycopy(categoryIds, 0, grown, 0, slot);
+            System.arraycopy(categoryIds, slot, grown, slot + 1, categoryIds.length - slot);
+            grown[slot] = categoryId;
+            categoryIds = grown;
+            byCategoryDate.add(slot, new TreeMap<>());
+        }
+        byCategoryDate.get(slot).put(dateKey, expense);
+    }
+
+    Expense remove(String expenseId, int categoryId) {
+        Expense expense = byId.remove(expenseId);
+        if (expense != null) {
+            OrderKey dateKey = new OrderKey(expense.getTimestamp(), expenseId);
+            byDate.remove(dateKey);
+            byAmount.remove(new OrderKey(expense.getAmountInCents(), expenseId));
+            int slot = Arrays.binarySearch(categoryIds, categoryId);
+            NavigableMap<OrderKey, Expense> dated = byCategoryDate.get(slot);
+            dated.remove(dateKey);
+            if (dated.isEmpty()) {
+                int[] shrunk = new int[categoryIds.length - 1];
+                System.arraycopy(categoryIds, 0, shrunk, 0, slot);
+                System.arraycopy(categoryIds, slot + 1, shrunk, slot, shrunk.length - slot);
+                categoryIds = shrunk;
+                byCategoryDate.remove(slot);
+            }
+        }
+        return expense;
+    }
+
+    // Null when the user has no row in the category.
+    private NavigableMap<OrderKey, Expense> categoryIndex(int categoryId) {
+        int slot = Arrays.binarySearch(categoryIds, categoryId);
+        return slot < 0 ? null : byCategoryDate.get(slot);
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    Collection<Expense> all() {
+        return byId.values();
+    }
+
+    // In (timestamp, id) order.
+    Collection<Expense> inCategory(int categoryId) {
+        NavigableMap<OrderKey, Expense> postings = categoryIndex(categoryId);
+        return postings == null ? Collections.<Expense>emptyList() : postings.values();
+    }
+
+    Collection<Expense> between(long startTime, long endTime) {
+        if (startTime > endTime) {
+            return Collections.emptyList();
+        }
+        return byDate.subMap(OrderKey.lowerBound(startTime), true, OrderKey.upperBound(endTime), true).values();
+    }
+
+    // Rows in (timestamp, id) order within [startTime, endTime] that come strictly after
+    // (afterTime, afterId); afterId == null starts at startTime. A null categoryId means all rows.
+    Collection<Expense> after(Integer categoryId, long startTime, long endTime, long afterTime, String afterId) {
+        NavigableMap<OrderKey, Expense> index = categoryId == null ? byDate : categoryIndex(categoryId);
+        if (index == null || startTime > endTime) {
+            return Collections.emptyList();
+        }
+        OrderKey from = OrderKey.lowerBound(startTime);
+        OrderKey to = OrderKey.upperBound(endTime);
+        boolean inclusive = true;
+        if (afterId != null) {
+            OrderKey cursor = new OrderKey(afterTime, afterId);
+            if (cursor.compareTo(to) >= 0) {
+                return Collections.emptyList();
+            }
+            if (cursor.compareTo(from) >= 0) {
+                from = cursor;
+                inclusive = false;
+            }
+        }
+        return index.subMap(from, inclusive, to, true).values();
+    }
+
+    // Plans the query over whichever of the date index (per category when one is given) and
+    // the amount index covers fewer rows, estimated by interpolating each index's key range.
+    // Reading the index in the requested direction avoids a sort when their orders agree.
+    Stream<Expense> query(Integer categoryId, ExpenseQuery query) {
+        NavigableMap<OrderKey, Expense> dateIndex = categoryId == null ? byDate : categoryIndex(categoryId);
+        if (dateIndex == null || query.getStartTime() > query.getEndTime() || query.getMinCents() > query.getMaxCents()) {
+            return Stream.empty();
+        }
+        double dateRows = estimate(dateIndex, query.getStartTime(), query.getEndTime());
+        double amountRows = estimate(byAmount, query.getMinCents(), query.getMaxCents());
+        ExpenseQuery.Order order = query.getOrder();
+        boolean amountOrdered = order == ExpenseQuery.Order.AMOUNT_ASCENDING || order == ExpenseQuery.Order.AMOUNT_DESCENDING;
+        if (amountRows < dateRows || amountRows == dateRows && amountOrdered) {
+            NavigableMap<OrderKey, Expense> range = range(byAmount, query.getMinCents(), query.getMaxCents());
+            return order == ExpenseQuery.Order.AMOUNT_DESCENDING
+                    ? query.finish(range.descendingMap().values().stream(), ExpenseQuery.Order.AMOUNT_DESCENDING)
+                    : query.finish(range.values().stream(), ExpenseQuery.Order.AMOUNT_ASCENDING);
+        }
+        NavigableMap<OrderKey, Expense> range = range(dateIndex, query.getStartTime(), query.getEndTime());
+        return order == ExpenseQuery.Order.DATE_DESCENDING
+                ? query.finish(range.descendingMap().values().stream(), ExpenseQuery.Order.DATE_DESCENDING)
+                : query.finish(range.values().stream(), ExpenseQuery.Order.DATE_ASCENDING);
+    }
+
+    private static NavigableMap<OrderKey, Expense> range(NavigableMap<OrderKey, Expense> index, long low, long high) {
+        return index.subMap(OrderKey.lowerBound(low), true, OrderKey.upperBound(high), true);
+    }
+
+    // Assumes keys are spread evenly between the smallest and largest; good enough to rank plans.
+    private static double estimate(NavigableMap<OrderKey, Expense> index, long low, long high) {
+        if (index.isEmpty()) {
+            return 0;
+        }
+        long first = index.firstKey().value;
+        long last = index.lastKey().value;
+        double from = Math.max(low, first);
+        double to = Math.min(high, last);
+        if (from > to) {
+            return 0;
+        }
+        return index.size() * (to - from + 1) / ((double) last - first + 1);
+    }
+
+    Collection<Expense> byAmount(boolean descending) {
+        return descending ? byAmount.descendingMap().values() : byAmount.values();
+    }
+
+    static final class OrderKey implements Comparable<OrderKey> {
+        private final long value;
+        private final String id; // null sorts after every id with the same value
+
+        OrderKey(long value, String id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        static OrderKey lowerBound(long value) {
+            return new OrderKey(value, "");
+        }
+
+        static OrderKey upperBound(long value) {
+            return new OrderKey(value, null);
+        }
+
+        @Override
+        public int compareTo(OrderKey other) {
+            int byValue = Long.compare(value, other.value);
+            if (byValue != 0) return byValue;
+            if (id == null) return other.id == null ? 0 : 1;
+            if (other.id == null) return -1;
+            return id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OrderKey orderKey = (OrderKey) o;
+            return value == orderKey.value && Objects.equals(id, orderKey.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, id);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.Objects;
+
+public class UserStatistics {
+    public static final UserStatistics EMPTY = new UserStatistics(0, 0, 0, 0);
+
+    private final long count;
+    private final long totalInCents;
+    private final long maxInCents;
+    private final long minInCents;
+
+    public UserStatistics(long count, long totalInCents, long maxInCents, long minInCents) {
+        this.count = count;
+        this.totalInCents = totalInCents;
+        this.maxInCents = maxInCents;
+        this.minInCents = minInCents;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return totalInCents / 100.0;
+    }
+
+    public double getMax() {
+        return maxInCents / 100.0;
+    }
+
+    public double getMin() {
+        return minInCents / 100.0;
+    }
+
+    public double getAverage() {
+        if (count == 0) {
+            return 0.0;
+        }
+        return StatisticsManager.averageOfCents(totalInCents, count) / 100.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserStatistics that = (UserStatistics) o;
+        return count == that.count && totalInCents == that.totalInCents &&
+                maxInCents == that.maxInCents && minInCents == that.minInCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, totalInCents, maxInCents, minInCents);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserStatistics{count=%d, total=%.2f, max=%.2f, min=%.2f}",
+                count, getTotal(), getMax(), getMin());
+    }
+}
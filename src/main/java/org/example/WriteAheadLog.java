@@ -0,0 +1,296 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog implements Closeable {
+    private static final int RECORD_HEADER_BYTES = 8; // int length + int crc32
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long groupCommitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Thread flusher;
+
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appendedSequence;
+    private long durableSequence;
+    private long syncCount;
+    private IOException failure;
+    private boolean closed;
+
+    public WriteAheadLog(Path path, long groupCommitMillis, Consumer<ByteBuffer> replayHandler) throws IOException {
+        this(openChannel(path, groupCommitMillis), groupCommitMillis, replayHandler);
+    }
+
+    // Takes ownership of an already open channel; tests use it to inject I/O failures.
+    static WriteAheadLog open(FileChannel channel, long groupCommitMillis, Consumer<ByteBuffer> replayHandler)
+            throws IOException {
+        return new WriteAheadLog(channel, groupCommitMillis, replayHandler);
+    }
+
+    private WriteAheadLog(FileChannel channel, long groupCommitMillis, Consumer<ByteBuffer> replayHandler) throws IOException {
+        this.groupCommitNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitMillis);
+        this.channel = channel;
+        try {
+            long validEnd = replay(channel, replayHandler);
+            channel.truncate(validEnd);
+            channel.position(validEnd);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.flusher = new Thread(this::flushLoop, "expense-wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    private static FileChannel openChannel(Path path, long groupCommitMillis) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Log path cannot be null");
+        }
+        if (groupCommitMillis < 0) {
+            throw new IllegalArgumentException("Group commit interval cannot be negative");
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public long append(byte[] record) {
+        return appendAll(Collections.singletonList(record));
+    }
+
+    // Enqueues the records together so the flusher picks them up in a single sync; returns
+    // the sequence number of the last one.
+    public long appendAll(List<byte[]> records) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("Records cannot be null or empty");
+        }
+        int[] checksums = new int[records.size()];
+        int bytes = 0;
+        for (int i = 0; i < checksums.length; i++) {
+            byte[] record = records.get(i);
+            if (record == null) {
+                throw new IllegalArgumentException("Record cannot be null");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, record.length);
+            checksums[i] = (int) crc.getValue();
+            bytes += RECORD_HEADER_BYTES + record.length;
+        }
+        lock.lock();
+        try {
+            checkOpen();
+            ensurePendingCapacity(bytes);
+            for (int i = 0; i < checksums.length; i++) {
+                byte[] record = records.get(i);
+                pending.putInt(record.length);
+                pending.putInt(checksums[i]);
+                pending.put(record);
+            }
+            appendedSequence += checksums.length;
+            dataAvailable.signal();
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (durableSequence < sequence) {
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            dataAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public static void replay(Path path, Consumer<ByteBuffer> handler) throws IOException {
+        try (FileChannel readOnly = FileChannel.open(path, StandardOpenOption.READ)) {
+            replay(readOnly, handler);
+        }
+    }
+
+    private static long replay(FileChannel channel, Consumer<ByteBuffer> handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        long position = 0;
+        long size = channel.size();
+        while (position + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + RECORD_HEADER_BYTES + length > size) {
+                break; // torn tail
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(channel, record, position + RECORD_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            if (handler != null) {
+                record.flip();
+                handler.accept(record);
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchSequence;
+            lock.lock();
+            try {
+                while (!closed && appendedSequence == durableSequence) {
+                    dataAvailable.awaitUninterruptibly();
+                }
+                if (appendedSequence == durableSequence) {
+                    return; // closed and fully flushed
+                }
+                long remaining = groupCommitNanos;
+                while (remaining > 0 && !closed) {
+                    try {
+                        remaining = dataAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                batch = pending;
+                batchSequence = appendedSequence;
+                pending = spare;
+                spare = null;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            long batchStart = -1;
+            try {
+                batchStart = channel.position();
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+                // Writers undo a failed batch, so recovery must not replay it; best effort only.
+                if (batchStart >= 0) {
+                    try {
+                        channel.truncate(batchStart);
+                    } catch (IOException suppressed) {
+                        error.addSuppressed(suppressed);
+                    }
+                }
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    closed = true;
+                    durable.signalAll();
+                    return;
+                }
+                batch.clear();
+                spare = batch;
+                durableSequence = batchSequence;
+                syncCount++;
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void ensurePendingCapacity(int bytes) {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        int capacity = Math.max(pending.capacity() * 2, pending.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+}
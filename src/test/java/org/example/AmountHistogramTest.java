@@ -0,0 +1,96 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountHistogramTest {
+
+    @Test
+    void testPercentilesStayWithinRelativeError() {
+        Random random = new Random(7);
+        long[] amounts = new long[20_000];
+        AmountHistogram histogram = new AmountHistogram();
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 1 + (long) Math.abs(random.nextGaussian() * 50_000) + (i % 10 == 0 ? 10_000_000L : 0);
+            histogram.record(amounts[i]);
+        }
+        Arrays.sort(amounts);
+
+        for (double percentile : new double[]{1, 25, 50, 90, 99, 99.9, 100}) {
+            long exact = amounts[(int) Math.ceil(percentile / 100.0 * amounts.length) - 1];
+            long estimate = histogram.valueAtPercentile(percentile);
+            assertTrue(Math.abs(estimate - exact) <= exact * AmountHistogram.RELATIVE_ERROR,
+                    "p" + percentile + ": exact " + exact + ", estimate " + estimate);
+        }
+    }
+
+    @Test
+    void testSmallAmountsAreExact() {
+        AmountHistogram histogram = new AmountHistogram();
+        for (long cents = 1; cents <= 100; cents++) {
+            histogram.record(cents);
+        }
+
+        assertEquals(1, histogram.valueAtPercentile(0));
+        assertEquals(50, histogram.valueAtPercentile(50));
+        assertEquals(90, histogram.valueAtPercentile(90));
+        assertEquals(100, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void testMergeEqualsRecordingEverything() {
+        AmountHistogram left = new AmountHistogram();
+        AmountHistogram right = new AmountHistogram();
+        AmountHistogram combined = new AmountHistogram();
+        for (long cents = 1; cents < 5_000_000; cents = cents * 3 / 2 + 1) {
+            (cents % 2 == 0 ? left : right).record(cents);
+            combined.record(cents);
+        }
+
+        left.merge(right);
+
+        assertEquals(combined.getCount(), left.getCount());
+        for (double percentile = 0; percentile <= 100; percentile += 5) {
+            assertEquals(combined.valueAtPercentile(percentile), left.valueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    void testRemoveAndCopy() {
+        AmountHistogram histogram = new AmountHistogram();
+        histogram.record(1_000);
+        histogram.record(Long.MAX_VALUE / 2);
+        AmountHistogram copy = new AmountHistogram(histogram);
+
+        assertTrue(histogram.remove(Long.MAX_VALUE / 2));
+        assertFalse(histogram.remove(5));
+        assertFalse(histogram.remove(0));
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(2, copy.getCount());
+        assertTrue(Math.abs(histogram.valueAtPercentile(100) - 1_000) <= 1_000 * AmountHistogram.RELATIVE_ERROR);
+    }
+
+    @Test
+    void testBucketMidpointsRoundTrip() {
+        for (long cents : new long[]{1, 127, 128, 255, 256, 257, 1_000_003, Long.MAX_VALUE}) {
+            long midpoint = AmountHistogram.midpointOf(AmountHistogram.indexOf(cents));
+            assertEquals(AmountHistogram.indexOf(cents), AmountHistogram.indexOf(midpoint));
+            assertTrue(Math.abs(midpoint - cents) <= cents * AmountHistogram.RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        AmountHistogram histogram = new AmountHistogram();
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertThrows(IllegalArgumentException.class, () -> histogram.record(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> histogram.merge(null));
+    }
+}
@@ -0,0 +1,148 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final ExpenseManager expenseManager = new ExpenseManager();
+    private final StringWriter out = new StringWriter();
+    private final BatchRunner runner = new BatchRunner(expenseManager, new StatisticsManager(), out, UTC);
+
+    @Test
+    void testRunsScriptInOrder() throws IOException {
+        run("# seed\n"
+                + "add u1 e1 food 12.50 2026-01-02\n"
+                + "add u1 e2 travel 7 2026-01-05\n"
+                + "\n"
+                + "list u1\n"
+                + "category u1 FOOD\n"
+                + "range u1 2026-01-03 2026-01-31\n"
+                + "sort u1\n"
+                + "total u1\n"
+                + "stats u1\n"
+                + "remove e1\n"
+                + "remove e1\n");
+
+        assertEquals("added e1\n"
+                + "added e2\n"
+                + "e1 u1 food 12.50 2026-01-02 00:00:00\n"
+                + "e2 u1 travel 7.00 2026-01-05 00:00:00\n"
+                + "rows 2\n"
+                + "e1 u1 food 12.50 2026-01-02 00:00:00\n"
+                + "rows 1\n"
+                + "e2 u1 travel 7.00 2026-01-05 00:00:00\n"
+                + "rows 1\n"
+                + "e2 u1 travel 7.00 2026-01-05 00:00:00\n"
+                + "e1 u1 food 12.50 2026-01-02 00:00:00\n"
+                + "rows 2\n"
+                + "total 19.50\n"
+                + "stats count=2 total=19.50 max=12.50 average=9.75\n"
+                + "removed e1\n"
+                + "not found e1\n", out.toString());
+        assertEquals(10, runner.getCommands());
+        assertEquals(0, runner.getErrors());
+    }
+
+    @Test
+    void testErrorsAreReportedByLineWithoutStopping() throws IOException {
+        run("add u1 e1 food 12.50 2026-01-02\n"
+                + "add u1 e1 food 3.00 2026-01-02\n"
+                + "add u1 e2 food abc\n"
+                + "add u1 e3 food -1\n"
+                + "range u1 2026-02-01 2026-01-01\n"
+                + "frobnicate\n"
+                + "list\n"
+                + "add u1 e4 food 1 2026-13-01\n"
+                + "add u1 e5 food 2\n");
+
+        assertEquals("added e1\n"
+                + "error line 2: Expense with ID e1 already exists\n"
+                + "error line 3: Invalid amount: abc\n"
+                + "error line 4: Amount must be positive\n"
+                + "error line 5: End date must be after start date\n"
+                + "error line 6: Unknown command: frobnicate\n"
+                + "error line 7: Usage: list <user>\n"
+                + "error line 8: Invalid date: 2026-13-01 (expected yyyy-MM-dd)\n"
+                + "added e5\n", out.toString());
+        assertEquals(9, runner.getCommands());
+        assertEquals(7, runner.getErrors());
+        assertEquals(2, expenseManager.size());
+    }
+
+    @Test
+    void testLargeBatchesAreCommittedInChunks() throws IOException {
+        StringBuilder script = new StringBuilder();
+        int rows = BatchRunner.MAX_PENDING_ADDS * 2 + 10;
+        for (int i = 0; i < rows; i++) {
+            script.append("add u").append(i % 7).append(" e").append(i).append(" food 1.25 2026-01-02\n");
+        }
+        script.append("total u0\n");
+
+        run(script.toString());
+
+        assertEquals(rows, expenseManager.size());
+        assertTrue(out.toString().endsWith("total " + String.format("%.2f", 1.25 * ((rows + 6) / 7)) + "\n"));
+        assertTrue(runner.summary().startsWith("Processed " + (rows + 1) + " commands (0 errors)"));
+    }
+
+    @Test
+    void testRowsTheStoreRefusesAreReportedByLine(@TempDir Path tempDir) throws IOException {
+        try (MappedExpenseStore store = new MappedExpenseStore(tempDir.resolve("ledger.bin"))) {
+            ExpenseManager manager = new ExpenseManager(store);
+            StringWriter output = new StringWriter();
+            BatchRunner mapped = new BatchRunner(manager, new StatisticsManager(), output, UTC);
+            String longId = "x".repeat(65);
+
+            mapped.run(new BufferedReader(new StringReader("add u1 e1 food 1 2026-01-02\n"
+                    + "add u1 " + longId + " food 2 2026-01-02\n"
+                    + "add u1 e1 food 3 2026-01-02\n"
+                    + "add u1 e2 food 4 2026-01-02\n"
+                    + "total u1\n")));
+
+            String[] lines = output.toString().split("\n");
+            assertEquals("added e1", lines[0]);
+            assertTrue(lines[1].startsWith("error line 2: "), lines[1]);
+            assertEquals("error line 3: Expense with ID e1 already exists", lines[2]);
+            assertEquals("added e2", lines[3]);
+            assertEquals("total 5.00", lines[4]);
+            assertEquals(2, mapped.getErrors());
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void testFailedReadKeepsOutputAndTiming() {
+        BufferedReader failing = new BufferedReader(new StringReader("total u1\n")) {
+            private int reads;
+
+            @Override
+            public String readLine() throws IOException {
+                if (reads++ > 0) {
+                    throw new IOException("disk gone");
+                }
+                return super.readLine();
+            }
+        };
+
+        assertThrows(IOException.class, () -> runner.run(failing));
+
+        assertEquals("total 0.00\n", out.toString());
+        assertTrue(runner.getElapsedNanos() > 0);
+        assertTrue(runner.summary().startsWith("Processed 1 commands (0 errors)"));
+    }
+
+    private void run(String script) throws IOException {
+        runner.run(new BufferedReader(new StringReader(script)));
+    }
+}
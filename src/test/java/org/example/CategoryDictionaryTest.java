@@ -0,0 +1,52 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryDictionaryTest {
+    private CategoryDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new CategoryDictionary();
+    }
+
+    @Test
+    void testInternIsCaseInsensitive() {
+        int food = dictionary.intern("Food");
+
+        assertEquals(food, dictionary.intern("FOOD"));
+        assertEquals(food, dictionary.lookup("fOoD"));
+        assertNotEquals(food, dictionary.intern("Travel"));
+        assertEquals(2, dictionary.size());
+        assertEquals("food", dictionary.name(food));
+    }
+
+    @Test
+    void testLookupUnknown() {
+        assertEquals(CategoryDictionary.UNKNOWN, dictionary.lookup("Food"));
+        assertEquals(CategoryDictionary.UNKNOWN, dictionary.lookup(null));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> dictionary.intern(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.name(0));
+    }
+
+    @Test
+    void testNormalizeAgreesWithEqualsIgnoreCase() {
+        String folded = "food";
+        assertSame(folded, CategoryDictionary.normalize(folded));
+        assertEquals(folded, CategoryDictionary.normalize("FooD"));
+        // U+0130 lower-cases to two chars as a whole string but matches "i" case-insensitively.
+        String dotted = "\u0130nd\u00c9";
+        assertTrue(dotted.equalsIgnoreCase("ind\u00e9"));
+        assertEquals(CategoryDictionary.normalize("ind\u00e9"), CategoryDictionary.normalize(dotted));
+        assertTrue(CategoryDictionary.sameCategory(CategoryDictionary.normalize(dotted), "IND\u00c9"));
+        assertEquals(dictionary.intern("ind\u00e9"), dictionary.intern(dotted));
+    }
+}
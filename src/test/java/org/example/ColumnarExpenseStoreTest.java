@@ -0,0 +1,78 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarExpenseStoreTest {
+    private ColumnarExpenseStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarExpenseStore();
+    }
+
+    @Test
+    void testAddAndGetMaterializesEqualExpense() {
+        Expense expense = new Expense("1", "user1", "Food", 12.34, new Date(1000));
+        store.add(expense);
+
+        assertEquals(expense, store.get("1"));
+        assertNotSame(expense, store.get("1"));
+        assertNull(store.get("2"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testDuplicateIdRejected() {
+        store.add(new Expense("1", "user1", "Food", 10.0, new Date()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.add(new Expense("1", "user2", "Food", 10.0, new Date())));
+    }
+
+    @Test
+    void testQueriesAreUserScoped() {
+        store.add(new Expense("1", "user1", "Food", 10.0, new Date(3000)));
+        store.add(new Expense("2", "user1", "FOOD", 20.0, new Date(1000)));
+        store.add(new Expense("3", "user1", "Travel", 30.0, new Date(2000)));
+        store.add(new Expense("4", "user2", "Food", 40.0, new Date(2000)));
+
+        assertEquals(3, store.findByUser("user1").size());
+        assertEquals(2, store.findByCategory("user1", "food").size());
+        assertEquals("FOOD", store.findByCategory("user1", "food").get(1).getCategory());
+        assertTrue(store.findByCategory("user1", "Other").isEmpty());
+
+        List<Expense> range = store.findByDateRange("user1", 1000, 2000);
+        assertEquals(2, range.size());
+        assertEquals("2", range.get(0).getId());
+        assertEquals("3", range.get(1).getId());
+
+        assertArrayEquals(new long[]{1000, 2000, 3000}, store.amountsInCents("user1"));
+        assertArrayEquals(new long[0], store.amountsInCents("nobody"));
+    }
+
+    @Test
+    void testRemoveAndCompaction() {
+        for (int i = 0; i < 2000; i++) {
+            store.add(new Expense("e" + i, "user" + (i % 3), "Food", 1.0 + i, new Date(i)));
+        }
+        for (int i = 0; i < 2000; i += 2) {
+            assertNotNull(store.remove("e" + i));
+        }
+        assertNull(store.remove("e0"));
+        store.remove("e1");
+
+        assertEquals(999, store.size());
+        assertNull(store.get("e1"));
+        assertEquals(new Expense("e3", "user0", "Food", 4.0, new Date(3)), store.get("e3"));
+        assertEquals(333, store.findByUser("user0").size());
+
+        store.add(new Expense("e0", "user0", "Food", 5.0, new Date(0)));
+        assertEquals(334, store.findByUser("user0").size());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentExpenseStoreTest {
+    @Test
+    void testShardCountRoundsUpToPowerOfTwo() {
+        assertEquals(1, new ConcurrentExpenseStore(1).getShardCount());
+        assertEquals(8, new ConcurrentExpenseStore(5).getShardCount());
+        assertEquals(16, new ConcurrentExpenseStore(16).getShardCount());
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentExpenseStore(0));
+    }
+
+    @Test
+    void testDateOrderedQueryReadsAcrossPages() {
+        ConcurrentExpenseStore store = new ConcurrentExpenseStore(4);
+        IndexedExpenseStore reference = new IndexedExpenseStore();
+        // Three rows share each timestamp, so page boundaries fall inside runs of ties.
+        for (int i = 0; i < 2500; i++) {
+            Expense expense = new Expense(String.format("e%04d", i), "user1", i % 2 == 0 ? "Food" : "Travel",
+                    1 + i % 50, new Date(1000L * (i / 3)));
+            store.add(expense);
+            reference.add(expense);
+        }
+
+        ExpenseQuery all = ExpenseQuery.forUser("user1").orderBy(ExpenseQuery.Order.DATE_ASCENDING).build();
+        assertEquals(reference.query(all).collect(Collectors.toList()), store.query(all).collect(Collectors.toList()));
+        ExpenseQuery filtered = ExpenseQuery.forUser("user1").category("food").minAmount(10)
+                .from(new Date(100_000)).orderBy(ExpenseQuery.Order.DATE_ASCENDING).limit(700).build();
+        List<Expense> rows = store.query(filtered).collect(Collectors.toList());
+        assertEquals(700, rows.size());
+        assertEquals(reference.query(filtered).collect(Collectors.toList()), rows);
+        assertEquals(2500, store.query(ExpenseQuery.forUser("user1").build()).count());
+    }
+
+    @Test
+    void testBasicOperations() {
+        ConcurrentExpenseStore store = new ConcurrentExpenseStore(4);
+        store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+        store.add(new Expense("2", "user2", "Travel", 20.0, new Date(2000)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.add(new Expense("1", "user3", "Food", 1.0, new Date())));
+        assertEquals(2, store.size());
+        assertEquals("user1", store.get("1").getUserId());
+        assertEquals(1, store.findByCategory("user2", "travel").size());
+        assertEquals(1, store.findByDateRange("user1", 0, 1000).size());
+        assertArrayEquals(new long[]{2000}, store.amountsInCents("user2"));
+
+        assertNotNull(store.remove("1"));
+        assertNull(store.remove("1"));
+        assertNull(store.get("1"));
+        store.add(new Expense("1", "user3", "Food", 1.0, new Date()));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        ConcurrentExpenseStore store = new ConcurrentExpenseStore(8);
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    store.add(new Expense(thread + "-" + i, "user" + thread, "Food", 1.0, new Date(i)));
+                    if (i % 2 == 1) {
+                        store.remove(thread + "-" + (i - 1));
+                    }
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    List<Expense> view = store.findByUser("user" + thread);
+                    assertTrue(view.size() <= perThread);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread / 2, store.size());
+        assertEquals(perThread / 2, store.findByUser("user5").size());
+    }
+
+    @Test
+    void testDuplicateIdRaceAdmitsExactlyOne() throws Exception {
+        ConcurrentExpenseStore store = new ConcurrentExpenseStore(8);
+        int threads = 8;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    store.add(new Expense("shared", "user" + thread, "Food", 1.0, new Date()));
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException expected) {
+                    // another thread won
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1, accepted.get());
+        assertEquals(1, store.size());
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateRendererTest {
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    @Test
+    void testMatchesSimpleDateFormatAcrossZones() {
+        long[] instants = {0L, -1L, 951782400000L, 1710054000000L, 4102444799000L,
+                -12219292800000L, -62135596800000L, 253402300800000L};
+        for (String zone : new String[]{"UTC", "Asia/Kolkata", "America/St_Johns", "Australia/Lord_Howe"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            SimpleDateFormat reference = new SimpleDateFormat(PATTERN);
+            reference.setTimeZone(timeZone);
+            DateRenderer renderer = new DateRenderer(timeZone);
+            for (long instant : instants) {
+                assertEquals(reference.format(new Date(instant)), renderer.format(instant), zone + " " + instant);
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentUseIsConsistent() throws Exception {
+        DateRenderer renderer = new DateRenderer(TimeZone.getTimeZone("UTC"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                SimpleDateFormat reference = new SimpleDateFormat(PATTERN);
+                reference.setTimeZone(TimeZone.getTimeZone("UTC"));
+                for (int i = 0; i < 5000; i++) {
+                    long instant = 1_600_000_000_000L + (long) (i * 8 + thread) * 3_600_000L * 7;
+                    assertEquals(reference.format(new Date(instant)), renderer.format(instant));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,195 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimitedExpenseImporterTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSmallChunksSplitOnLineBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("id,userId,category,amount,date\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("e").append(i).append(",user").append(i % 3).append(",\"Food, \"\"fresh\"\"\",")
+                    .append(i + 1).append(".25,1970-01-01 00:00:").append(String.format("%02d", i % 60)).append('\n');
+        }
+        Path file = write(csv.toString());
+
+        // Chunk sizes that fall in the middle of lines, on newlines and inside quoted fields.
+        for (int chunkBytes : new int[]{7, 64, 97, 4096}) {
+            ExpenseManager target = new ExpenseManager();
+            ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, chunkBytes)
+                    .importFile(file, target, executor, 3);
+
+            assertEquals(500, report.getImported(), "chunk size " + chunkBytes);
+            assertEquals(0, report.getRejected());
+            Expense last = target.getExpense("e499");
+            assertEquals("Food, \"fresh\"", last.getCategory());
+            assertEquals(50025, last.getAmountInCents());
+            assertEquals(19_000, last.getTimestamp());
+        }
+    }
+
+    @Test
+    void testMalformedRowsAreReportedWithLineNumbers() throws IOException {
+        Path file = write("id,userId,category,amount,date\r\n"
+                + "1,user1,Food,12.50,2026-01-02 10:00:00\r\n"
+                + "2,user1,Food,-3,2026-01-02 10:00:00\n"
+                + "\n"
+                + "3,user1,Food,abc,2026-01-02 10:00:00\n"
+                + "4,user1,Food,1.5,2026-13-02 10:00:00\n"
+                + "5,user1,Food,1.5\n"
+                + "6,,Food,1.5,2026-01-02 10:00:00\n"
+                + "1,user2,Food,9.99,2026-01-02 10:00:00\n"
+                + "8,user2,Travel,1e2,2026-01-02 10:00:00\n"
+                + "7,user1,\"Food,1.5,2026-01-02 10:00:00\n");
+        ExpenseManager target = new ExpenseManager();
+
+        ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, 16)
+                .importFile(file, target, executor, 2);
+
+        assertEquals(2, report.getImported());
+        assertEquals(7, report.getRejected());
+        List<String> errors = new ArrayList<>();
+        for (ImportReport.RowError error : report.getErrors()) {
+            errors.add(error.toString());
+        }
+        assertEquals("line 3: Amount must be positive", errors.get(0));
+        assertEquals("line 5: Invalid amount: abc", errors.get(1));
+        assertEquals("line 6: Invalid date: 2026-13-02 10:00:00", errors.get(2));
+        assertEquals("line 7: Expected 5 fields but found 4", errors.get(3));
+        assertEquals("line 8: User ID cannot be null or empty", errors.get(4));
+        assertEquals("line 9: Expense with ID 1 already exists", errors.get(5));
+        assertEquals("line 11: Unterminated quoted field", errors.get(6));
+        assertEquals(10000, target.getExpense("8").getAmountInCents());
+    }
+
+    @Test
+    void testQuotedNewlinesRoundTrip() throws IOException {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expenses.add(Expense.ofCents("e" + i, "user" + (i % 3), i % 2 == 0 ? "Eat\nOut" : "Rent,\r\n\"shared\"",
+                    100 + i, new Date(i * 1000L)));
+        }
+        Path file = tempDir.resolve("expenses.csv");
+        new ExportManager().exportToFile(expenses.iterator(), file, ExportFormat.CSV);
+
+        // Small chunks make the first newline of many chunks one inside a quoted field.
+        for (int chunkBytes : new int[]{3, 7, 13, 64, 4096}) {
+            ExpenseManager target = new ExpenseManager();
+            ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, chunkBytes)
+                    .importFile(file, target, executor, 3);
+
+            assertEquals(expenses.size(), report.getImported(), "chunk size " + chunkBytes);
+            assertEquals(0, report.getRejected());
+            for (Expense expense : expenses) {
+                assertEquals(expense.getCategory(), target.getExpense(expense.getId()).getCategory());
+            }
+        }
+    }
+
+    @Test
+    void testErrorsAfterQuotedNewlinesReportPhysicalLines() throws IOException {
+        Path file = write("1,user1,\"Eat\nOut\",12.50,2026-01-02 10:00:00\n"
+                + "2,user1,\"a\r\nb\nc\",-3,2026-01-02 10:00:00\n"
+                + "3,user1,Food,abc,2026-01-02 10:00:00\n");
+        ExpenseManager target = new ExpenseManager();
+
+        ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, 8)
+                .importFile(file, target, executor, 2);
+
+        assertEquals(1, report.getImported());
+        assertEquals("Eat\nOut", target.getExpense("1").getCategory());
+        assertEquals("line 3: Amount must be positive", report.getErrors().get(0).toString());
+        assertEquals("line 6: Invalid amount: abc", report.getErrors().get(1).toString());
+    }
+
+    @Test
+    void testRowsTheStoreRefusesAreRejectedByLine() throws IOException {
+        Path file = write("1,user1,Food,1.00,2026-01-02 10:00:00\n"
+                + "x".repeat(70) + ",user1,Food,2.00,2026-01-02 10:00:00\n"
+                + "1,user1,Food,3.00,2026-01-02 10:00:00\n"
+                + "2,user1,Food,4.00,2026-01-02 10:00:00\n");
+        try (MappedExpenseStore store = new MappedExpenseStore(tempDir.resolve("ledger.bin"))) {
+            ExpenseManager target = new ExpenseManager(store);
+
+            ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, 4096)
+                    .importFile(file, target, executor, 1);
+
+            assertEquals(2, report.getImported());
+            assertEquals(2, report.getRejected());
+            assertEquals(2, report.getErrors().get(0).getLine());
+            assertEquals("line 3: Expense with ID 1 already exists", report.getErrors().get(1).toString());
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void testAmountsBelowOneCentAreRejected() throws IOException {
+        Path file = write("1,user1,Food,0.001,2026-01-02 10:00:00\n"
+                + "2,user1,Food,0.00,2026-01-02 10:00:00\n"
+                + "3,user1,Food,0.004,2026-01-02 10:00:00\n"
+                + "4,user1,Food,0.005,2026-01-02 10:00:00\n");
+        ExpenseManager target = new ExpenseManager();
+
+        ImportReport report = new DelimitedExpenseImporter(ExportFormat.CSV, UTC, 4096)
+                .importFile(file, target, executor, 1);
+
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals("line 1: Amount must be at least 0.01", report.getErrors().get(0).toString());
+        assertEquals(1, target.getExpense("4").getAmountInCents());
+        assertEquals(1, target.getExpensesByUser("user1").size());
+    }
+
+    @Test
+    void testTsvEscapesRoundTrip() throws IOException {
+        Expense expense = Expense.ofCents("t1", "user1", "a\tb\\c", 1234, new Date(86_400_000L));
+        Path file = tempDir.resolve("expenses.tsv");
+        new ExportManager().exportToFile(java.util.Collections.singletonList(expense).iterator(), file, ExportFormat.TSV);
+        ExpenseManager target = new ExpenseManager();
+
+        ImportReport report = new DelimitedExpenseImporter(ExportFormat.TSV, TimeZone.getDefault(), 5)
+                .importFile(file, target, executor, 1);
+
+        assertEquals(1, report.getImported());
+        assertEquals(expense, target.getExpense("t1"));
+        assertEquals(expense.getTimestamp(), target.getExpense("t1").getTimestamp());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("expenses.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
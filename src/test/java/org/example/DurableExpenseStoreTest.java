@@ -0,0 +1,399 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableExpenseStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReplayRebuildsIndexes() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+            store.add(new Expense("2", "user1", "Travel", 20.5, new Date(2000)));
+            store.add(new Expense("3", "user2", "Food", 30.0, new Date(3000)));
+            assertNotNull(store.remove("1"));
+            assertNull(store.remove("missing"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.add(new Expense("2", "user3", "Food", 1.0, new Date())));
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(2, store.size());
+            assertNull(store.get("1"));
+            assertEquals(new Expense("2", "user1", "Travel", 20.5, new Date(2000)), store.get("2"));
+            assertEquals(1, store.findByCategory("user2", "food").size());
+        }
+    }
+
+    @Test
+    void testConcurrentWritersShareSyncs() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        int threads = 8;
+        int perThread = 50;
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 2)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        store.add(new Expense(thread + "-" + i, "user" + thread, "Food", 1.0, new Date(i)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertEquals(threads * perThread, store.size());
+            assertTrue(store.getSyncCount() < threads * perThread);
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new ColumnarExpenseStore(), dataDir, 0)) {
+            assertEquals(threads * perThread, store.size());
+            assertEquals(perThread, store.findByUser("user3").size());
+        }
+    }
+
+    @Test
+    void testAddAllLogsBatchWithOneSync() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Expense("id" + i, "user" + (i % 3), "Food", 1.0 + i, new Date(i)));
+        }
+        batch.add(new Expense("id0", "user9", "Food", 5.0, new Date()));
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            long syncsBefore = store.getSyncCount();
+            List<Expense> duplicates = store.addAll(batch);
+
+            assertEquals(1, duplicates.size());
+            assertEquals(1, store.getSyncCount() - syncsBefore);
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(100, store.size());
+            assertEquals("user0", store.get("id0").getUserId());
+        }
+    }
+
+    @Test
+    void testNullDelegateRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DurableExpenseStore(null, tempDir.resolve("data"), 0));
+    }
+
+    @Test
+    void testSnapshotCompactsLogAndRestartReplaysTail() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+            store.add(new Expense("2", "user1", "Food", 20.0, new Date(2000)));
+            store.snapshot().get();
+            store.remove("1");
+            store.add(new Expense("3", "user2", "Travel", 30.0, new Date(3000)));
+
+            assertEquals(Arrays.asList("snapshot-0000000001.bin", "wal-0000000001.log"), listFiles(dataDir));
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(2, store.size());
+            assertNull(store.get("1"));
+            assertEquals(new Expense("2", "user1", "Food", 20.0, new Date(2000)), store.get("2"));
+            assertNotNull(store.get("3"));
+            assertTrue(store.getRecoveryMillis() >= 0);
+
+            store.snapshot().get();
+            assertEquals(Arrays.asList("snapshot-0000000002.bin", "wal-0000000002.log"), listFiles(dataDir));
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new ColumnarExpenseStore(), dataDir, 0)) {
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void testRestartWithoutCompletedSnapshotReplaysAllSegments() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        Files.createDirectories(dataDir);
+        Files.write(dataDir.resolve("snapshot-0000000005.bin.tmp"), new byte[]{1, 2, 3});
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+        }
+        Files.write(dataDir.resolve("wal-0000000001.log"), new byte[0]);
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("2", "user1", "Food", 20.0, new Date(2000)));
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(2, store.size());
+            assertFalse(listFiles(dataDir).contains("snapshot-0000000005.bin.tmp"));
+        }
+    }
+
+    @Test
+    void testScheduledSnapshots() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+            assertThrows(IllegalArgumentException.class, () -> store.scheduleSnapshots(0, TimeUnit.MILLISECONDS));
+            store.scheduleSnapshots(10, TimeUnit.MILLISECONDS);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (listFiles(dataDir).stream().noneMatch(name -> name.startsWith("snapshot-"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(listFiles(dataDir).stream().anyMatch(name -> name.startsWith("snapshot-")));
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void testFailedLogAppendLeavesStoreUnchanged() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0);
+        store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+        store.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> store.add(new Expense("2", "user1", "Food", 5.0, new Date(2000))));
+        assertThrows(IllegalStateException.class,
+                () -> store.addAll(List.of(new Expense("3", "user1", "Food", 5.0, new Date(3000)))));
+        assertThrows(IllegalStateException.class, () -> store.remove("1"));
+
+        assertEquals(1, store.size());
+        assertNull(store.get("2"));
+        assertNull(store.get("3"));
+        assertNotNull(store.get("1"));
+    }
+
+    @Test
+    void testFailedSyncRollsBackUnsyncedChanges() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        AtomicBoolean failForce = new AtomicBoolean();
+        DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 200) {
+            @Override
+            WriteAheadLog openLog(Path path, Consumer<ByteBuffer> replay) throws IOException {
+                FileChannel channel = FileChannel.open(path,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                return WriteAheadLog.open(new FailingForceChannel(channel, failForce), 200, replay);
+            }
+        };
+        store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+        failForce.set(true);
+
+        // The add of "3" and the remove of "1" share one group commit window, so both are undone.
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> add = executor.submit(() -> store.add(new Expense("3", "user1", "Food", 5.0, new Date(3000))));
+            while (store.get("3") == null && !add.isDone()) {
+                Thread.sleep(1);
+            }
+            assertThrows(RuntimeException.class, () -> store.remove("1"));
+            assertThrows(ExecutionException.class, add::get);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNull(store.get("3"));
+        assertNotNull(store.get("1"));
+        assertEquals(1, store.size());
+        assertThrows(IllegalStateException.class,
+                () -> store.add(new Expense("2", "user1", "Food", 5.0, new Date(2000))));
+        assertThrows(IllegalStateException.class, () -> store.remove("1"));
+        assertNotNull(store.get("1"));
+        store.close();
+
+        try (DurableExpenseStore reopened = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(1, reopened.size());
+            assertNotNull(reopened.get("1"));
+        }
+    }
+
+    @Test
+    void testReplayKeepsOrderOfAddsAndRemoves() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.addAll(List.of(new Expense("1", "user1", "Food", 10.0, new Date(1000)),
+                    new Expense("2", "user1", "Food", 20.0, new Date(2000))));
+            store.remove("1");
+            store.add(new Expense("1", "user2", "Travel", 30.0, new Date(3000)));
+            store.snapshot();
+            store.remove("2");
+            store.add(new Expense("2", "user2", "Travel", 40.0, new Date(4000)));
+        }
+
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(new Expense("1", "user2", "Travel", 30.0, new Date(3000)), store.get("1"));
+            assertEquals(new Expense("2", "user2", "Travel", 40.0, new Date(4000)), store.get("2"));
+            assertTrue(store.findByUser("user1").isEmpty());
+        }
+    }
+
+    @Test
+    void testScheduledSnapshotsSurviveFailures() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        Path moved = tempDir.resolve("moved");
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+            Files.move(dataDir, moved);
+            store.scheduleSnapshots(10, TimeUnit.MILLISECONDS);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.getSnapshotFailureCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(store.getSnapshotFailureCount() >= 2);
+
+            Files.move(moved, dataDir);
+            while (listFiles(dataDir).stream().noneMatch(name -> name.startsWith("snapshot-"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            store.add(new Expense("2", "user1", "Food", 5.0, new Date(2000)));
+        }
+        assertTrue(listFiles(dataDir).stream().anyMatch(name -> name.startsWith("snapshot-")));
+        try (DurableExpenseStore store = new DurableExpenseStore(new IndexedExpenseStore(), dataDir, 0)) {
+            assertEquals(2, store.size());
+        }
+    }
+
+    // Passes everything through to a real channel, but force() fails once armed.
+    private static final class FailingForceChannel extends FileChannel {
+        private final FileChannel channel;
+        private final AtomicBoolean failForce;
+
+        FailingForceChannel(FileChannel channel, AtomicBoolean failForce) {
+            this.channel = channel;
+            this.failForce = failForce;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForce.get()) {
+                throw new IOException("Injected force failure");
+            }
+            channel.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return channel.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return channel.write(src, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static List<String> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
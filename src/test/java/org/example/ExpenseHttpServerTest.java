@@ -0,0 +1,216 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseHttpServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ExpenseManager expenseManager;
+    private ExpenseHttpServer server;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        expenseManager = new ExpenseManager(new ConcurrentExpenseStore());
+        StatisticsManager statisticsManager = new StatisticsManager();
+        expenseManager.addListener(statisticsManager);
+        server = new ExpenseHttpServer(expenseManager, statisticsManager, new ExportManager(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0, TimeZone.getTimeZone("UTC"));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testAddGetAndRemove() throws Exception {
+        HttpResponse<String> created = post("{\"id\":\"e1\",\"userId\":\"alice\",\"category\":\"Food\","
+                + "\"amount\":12.5,\"date\":\"2026-01-02\"}");
+        assertEquals(201, created.statusCode());
+        assertEquals("{\"id\":\"e1\",\"userId\":\"alice\",\"category\":\"Food\",\"amount\":12.50,"
+                + "\"timestamp\":1767312000000}", created.body());
+
+        assertEquals(409, post("{\"id\":\"e1\",\"userId\":\"bob\",\"category\":\"Food\",\"amount\":1}").statusCode());
+        assertEquals(created.body(), get("/expenses/e1").body());
+        assertEquals(204, send(HttpRequest.newBuilder(URI.create(base + "/expenses/e1")).DELETE()).statusCode());
+        assertEquals(404, get("/expenses/e1").statusCode());
+        assertEquals(404, send(HttpRequest.newBuilder(URI.create(base + "/expenses/e1")).DELETE()).statusCode());
+    }
+
+    @Test
+    void testRejectsBadRequests() throws Exception {
+        HttpResponse<String> missingAmount = post("{\"id\":\"e1\",\"userId\":\"alice\",\"category\":\"Food\"}");
+        assertEquals(400, missingAmount.statusCode());
+        assertEquals("{\"error\":\"Field amount must be a number\"}", missingAmount.body());
+        assertEquals(400, post("{\"id\":\"e1\",\"userId\":\"alice\",\"category\":\"Food\",\"amount\":-1}").statusCode());
+        assertEquals(400, post("not json").statusCode());
+        assertEquals(400, get("/users/alice/expenses?from=yesterday").statusCode());
+        assertEquals(400, get("/users/alice/export?format=xml").statusCode());
+        assertEquals(404, get("/nowhere").statusCode());
+        assertEquals(405, get("/expenses").statusCode());
+
+        String large = "{\"id\":\"" + "x".repeat(ExpenseHttpServer.MAX_BODY_BYTES) + "\"}";
+        assertEquals(413, post(large).statusCode());
+    }
+
+    @Test
+    void testQueriesStatisticsAndPaging() throws Exception {
+        for (int day = 1; day <= 9; day++) {
+            String category = day % 3 == 0 ? "Travel" : "Food";
+            assertEquals(201, post("{\"id\":\"e" + day + "\",\"userId\":\"alice\",\"category\":\"" + category
+                    + "\",\"amount\":" + day + ",\"date\":\"2026-01-0" + day + "\"}").statusCode());
+        }
+
+        assertEquals("[" + ids(3, 6, 9) + "]",
+                stripToIds(get("/users/alice/expenses?category=travel").body()));
+        assertEquals("[" + ids(2, 3, 4) + "]",
+                stripToIds(get("/users/alice/expenses?from=2026-01-02&to=2026-01-04").body()));
+        assertEquals("[" + ids(9, 8) + "]",
+                stripToIds(get("/users/alice/expenses?order=amount_descending&limit=2&minAmount=2").body()));
+        assertEquals("[]", get("/users/nobody/expenses").body());
+
+        String statistics = get("/users/alice/statistics").body();
+        assertTrue(statistics.startsWith("{\"userId\":\"alice\",\"count\":9,\"total\":45.0,\"max\":9.0,\"min\":1.0,"),
+                statistics);
+
+        List<String> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            String body = get("/users/alice/expenses?pageSize=4" + (cursor == null ? "" : "&cursor=" + cursor)).body();
+            pages.add(stripToIds(body.substring(0, body.indexOf("],\"nextCursor\"") + 1)));
+            int start = body.indexOf("\"nextCursor\":") + "\"nextCursor\":".length();
+            cursor = body.startsWith("null", start) ? null : body.substring(start + 1, body.indexOf('"', start + 1));
+        } while (cursor != null);
+        assertEquals(List.of("{\"expenses\":[" + ids(1, 2, 3, 4) + "]", "{\"expenses\":[" + ids(5, 6, 7, 8) + "]",
+                "{\"expenses\":[" + ids(9) + "]"), pages);
+    }
+
+    @Test
+    void testStreamsLargeExportWithChunkedEncoding() throws Exception {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            expenses.add(Expense.ofCents("e" + i, "alice", "Food", 100 + i, new java.util.Date(i * 1000L)));
+        }
+        expenseManager.addAll(expenses);
+
+        HttpResponse<String> csv = get("/users/alice/export?format=csv");
+        HttpResponse<String> json = get("/users/alice/expenses");
+
+        assertEquals(200, csv.statusCode());
+        assertTrue(csv.headers().firstValue("Content-Length").isEmpty());
+        assertEquals(20_001, csv.body().split("\n").length);
+        assertEquals(20_000, json.body().split("\\{\"id\"").length - 1);
+    }
+
+    @Test
+    void testServesConcurrentClients() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/expenses"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"id\":\"e" + i + "\",\"userId\":\"u" + (i % 10)
+                            + "\",\"category\":\"Food\",\"amount\":1.5}"))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(201, response.get().statusCode());
+        }
+
+        assertEquals(200, expenseManager.size());
+        assertTrue(get("/users/u3/statistics").body().contains("\"count\":20,"));
+    }
+
+    @Test
+    void testConcurrentAddsAndRemovesKeepStatisticsInStep() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                URI uri = URI.create(base + "/expenses/e" + i);
+                responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create(base + "/expenses"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"id\":\"e" + i
+                                + "\",\"userId\":\"alice\",\"category\":\"Food\",\"amount\":1}")).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+                responses.add(client.sendAsync(HttpRequest.newBuilder(uri).DELETE().build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            response.get();
+        }
+
+        int stored = expenseManager.getExpensesByUser("alice").size();
+        assertTrue(get("/users/alice/statistics").body().contains("\"count\":" + stored + ","));
+    }
+
+    @Test
+    void testFailureMidStreamCutsOffResponse() throws Exception {
+        server.close();
+        ExpenseManager failing = new ExpenseManager(new IndexedExpenseStore() {
+            @Override
+            public java.util.stream.Stream<Expense> query(ExpenseQuery query) {
+                return super.query(query).map(expense -> {
+                    if (expense.getId().equals("e9000")) {
+                        throw new IllegalStateException("store failed");
+                    }
+                    return expense;
+                });
+            }
+        });
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            expenses.add(Expense.ofCents("e" + i, "alice", "Food", 100, new java.util.Date(i * 1000L)));
+        }
+        failing.addAll(expenses);
+        server = new ExpenseHttpServer(failing, new StatisticsManager(), new ExportManager(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0, TimeZone.getTimeZone("UTC"));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        assertThrows(IOException.class, () -> get("/users/alice/expenses"));
+        assertThrows(IOException.class, () -> get("/users/alice/export"));
+        assertEquals(404, get("/expenses/missing").statusCode());
+    }
+
+    private static String ids(int... days) {
+        StringBuilder ids = new StringBuilder();
+        for (int day : days) {
+            ids.append(ids.length() == 0 ? "" : ",").append("e").append(day);
+        }
+        return ids.toString();
+    }
+
+    // Reduces each expense object to its ID so assertions stay readable.
+    private static String stripToIds(String json) {
+        return json.replaceAll("\\{\"id\":\"(e\\d+)\"[^}]*}", "$1");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(base + path)).GET());
+    }
+
+    private HttpResponse<String> post(String json) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(base + "/expenses")).POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -4,12 +4,20 @@ import org.example.Expense;
 import org.example.ExpenseManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.Arguments;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -227,4 +235,382 @@ public class ExpenseManagerTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    public void testRemoveExpense_OnlyAffectsOwningUser() {
+        Date date = new Date();
+        expenseManager.addExpense(new Expense("1", "User1", "Food", 10.0, date));
+        expenseManager.addExpense(new Expense("2", "User2", "Food", 20.0, date));
+
+        assertTrue(expenseManager.removeExpense("1"));
+
+        assertTrue(expenseManager.getExpensesByUser("User1").isEmpty());
+        assertEquals(1, expenseManager.getExpensesByUser("User2").size());
+    }
+
+    @Test
+    public void testGetExpensesByUser_ReturnsCopy() {
+        expenseManager.addExpense(new Expense("1", "User1", "Food", 10.0, new Date()));
+
+        expenseManager.getExpensesByUser("User1").clear();
+
+        assertEquals(1, expenseManager.getExpensesByUser("User1").size());
+    }
+
+    @Test
+    public void testAddExpense_DuplicateIdRejected() {
+        expenseManager.addExpense(new Expense("1", "User1", "Food", 10.0, new Date()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseManager.addExpense(new Expense("1", "User2", "Travel", 20.0, new Date())));
+        assertTrue(expenseManager.getExpensesByUser("User2").isEmpty());
+    }
+
+    @Test
+    public void testGetExpense() {
+        Expense expense = new Expense("1", "User1", "Food", 10.0, new Date());
+        expenseManager.addExpense(expense);
+
+        assertEquals(expense, expenseManager.getExpense("1"));
+        assertNull(expenseManager.getExpense("2"));
+        assertNull(expenseManager.getExpense(null));
+
+        expenseManager.removeExpense("1");
+        assertNull(expenseManager.getExpense("1"));
+    }
+
+    @Test
+    public void testColumnarStoreBehindManager() {
+        ExpenseManager columnar = new ExpenseManager(new ColumnarExpenseStore());
+        Date date = new Date();
+        columnar.addExpense(new Expense("1", "User1", "Food", 10.0, date));
+        columnar.addExpense(new Expense("2", "User1", "Travel", 20.0, date));
+
+        assertEquals(2, columnar.getExpensesByUser("User1").size());
+        assertEquals(1, columnar.filterByCategory("User1", "food").size());
+        assertEquals(2, columnar.filterByDateRange("User1", date, date).size());
+        assertArrayEquals(new long[]{1000, 2000}, columnar.getAmountsInCents("User1"));
+        assertTrue(columnar.removeExpense("1"));
+        assertEquals(1, columnar.size());
+        assertThrows(IllegalArgumentException.class, () -> new ExpenseManager(null));
+    }
+
+    @Test
+    public void testListenersSeeExistingAndNewChanges() {
+        List<String> events = new ArrayList<>();
+        ExpenseListener listener = new ExpenseListener() {
+            @Override
+            public void expenseAdded(Expense expense) {
+                events.add("+" + expense.getId());
+            }
+
+            @Override
+            public void expenseRemoved(Expense expense) {
+                events.add("-" + expense.getId());
+            }
+        };
+        expenseManager.addExpense(new Expense("1", "User1", "Food", 10.0, new Date()));
+        expenseManager.addListener(listener);
+        expenseManager.addExpense(new Expense("2", "User1", "Food", 20.0, new Date()));
+        expenseManager.removeExpense("1");
+        expenseManager.removeExpense("missing");
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseManager.addExpense(new Expense("2", "User1", "Food", 20.0, new Date())));
+
+        assertTrue(expenseManager.removeListener(listener));
+        expenseManager.removeExpense("2");
+
+        assertEquals(Arrays.asList("+1", "+2", "-1"), events);
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.addListener(null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideStores")
+    public void testAmountPagination(ExpenseStore store) {
+        ExpenseManager manager = new ExpenseManager(store);
+        Date date = new Date();
+        double[] amounts = {30.0, 10.0, 50.0, 20.0, 40.0};
+        for (int i = 0; i < amounts.length; i++) {
+            manager.addExpense(new Expense(String.valueOf(i), "User1", "Food", amounts[i], date));
+        }
+        manager.addExpense(new Expense("other", "User2", "Food", 99.0, date));
+
+        List<Expense> top = manager.topExpensesByAmount("User1", 2);
+        assertEquals(2, top.size());
+        assertEquals(50.0, top.get(0).getAmount());
+        assertEquals(40.0, top.get(1).getAmount());
+
+        List<Expense> secondPage = manager.getExpensesSortedByAmount("User1", false, 2, 2);
+        assertEquals(30.0, secondPage.get(0).getAmount());
+        assertEquals(40.0, secondPage.get(1).getAmount());
+
+        assertEquals(1, manager.getExpensesSortedByAmount("User1", true, 4, 10).size());
+        assertTrue(manager.getExpensesSortedByAmount("User1", true, 10, 10).isEmpty());
+        assertTrue(manager.topExpensesByAmount("User1", 0).isEmpty());
+        assertTrue(manager.topExpensesByAmount(null, 5).isEmpty());
+
+        manager.removeExpense("2");
+        assertEquals(40.0, manager.topExpensesByAmount("User1", 1).get(0).getAmount());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.getExpensesSortedByAmount("User1", true, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> manager.getExpensesSortedByAmount("User1", true, 0, -1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideStores")
+    public void testAddAllSkipsDuplicatesAndNotifiesListeners(ExpenseStore store) {
+        ExpenseManager manager = new ExpenseManager(store);
+        StatisticsManager statistics = new StatisticsManager();
+        manager.addListener(statistics);
+        Date date = new Date(1000);
+        manager.addExpense(new Expense("existing", "User1", "Food", 5.0, date));
+
+        List<Expense> duplicates = manager.addAll(Arrays.asList(
+                new Expense("existing", "User1", "Food", 7.0, date),
+                new Expense("b", "User1", "Travel", 10.0, date),
+                new Expense("a", "User2", "Food", 3.0, date),
+                new Expense("a", "User2", "Food", 4.0, date)));
+
+        assertEquals(2, duplicates.size());
+        assertEquals("existing", duplicates.get(0).getId());
+        assertEquals(4.0, duplicates.get(1).getAmount());
+        assertEquals(3, manager.size());
+        assertEquals(3.0, manager.getExpense("a").getAmount());
+        assertEquals(1, manager.filterByCategory("User1", "travel").size());
+        assertEquals(15.0, statistics.getUserStatistics("User1").getTotal());
+        assertEquals(3.0, statistics.getUserStatistics("User2").getTotal());
+        assertEquals(Arrays.asList(500L, 1000L), toList(manager.getAmountsInCents("User1")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideStores")
+    public void testCursorPaginationIsStableUnderAdds(ExpenseStore store) {
+        ExpenseManager manager = new ExpenseManager(store);
+        for (int i = 0; i < 10; i++) {
+            manager.addExpense(new Expense("e" + i, "User1", i % 2 == 0 ? "Food" : "Travel", 1.0 + i, new Date(i * 1000L)));
+        }
+        manager.addExpense(new Expense("other", "User2", "Food", 1.0, new Date(0)));
+
+        ExpensePage first = manager.getExpensesByUser("User1", null, 4);
+        assertEquals(Arrays.asList("e0", "e1", "e2", "e3"), idsOf(first.getExpenses()));
+        assertTrue(first.hasNext());
+
+        // One row lands before the cursor and one after; only the later one shows up.
+        manager.addExpense(new Expense("early", "User1", "Food", 1.0, new Date(500)));
+        manager.addExpense(new Expense("late", "User1", "Food", 1.0, new Date(3500)));
+
+        ExpensePage second = manager.getExpensesByUser("User1", first.getNextCursor(), 4);
+        assertEquals(Arrays.asList("late", "e4", "e5", "e6"), idsOf(second.getExpenses()));
+        ExpensePage third = manager.getExpensesByUser("User1", second.getNextCursor(), 4);
+        assertEquals(Arrays.asList("e7", "e8", "e9"), idsOf(third.getExpenses()));
+        assertFalse(third.hasNext());
+        assertNull(third.getNextCursor());
+
+        ExpensePage food = manager.filterByCategory("User1", "food", null, 3);
+        assertEquals(Arrays.asList("e0", "early", "e2"), idsOf(food.getExpenses()));
+        assertEquals(Arrays.asList("late", "e4", "e6"),
+                idsOf(manager.filterByCategory("User1", "food", food.getNextCursor(), 3).getExpenses()));
+
+        ExpensePage range = manager.filterByDateRange("User1", new Date(2000), new Date(4000), null, 2);
+        assertEquals(Arrays.asList("e2", "e3"), idsOf(range.getExpenses()));
+        ExpensePage rangeTail = manager.filterByDateRange("User1", new Date(2000), new Date(4000), range.getNextCursor(), 2);
+        assertEquals(Arrays.asList("late", "e4"), idsOf(rangeTail.getExpenses()));
+        assertFalse(rangeTail.hasNext());
+    }
+
+    @Test
+    public void testCursorPaginationInvalidArguments() {
+        expenseManager.addExpense(new Expense("1", "User1", "Food", 1.0, new Date()));
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.getExpensesByUser("User1", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.getExpensesByUser("User1", "not a cursor!", 5));
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.filterByCategory("User1", null, null, -1));
+        assertTrue(expenseManager.getExpensesByUser(null, null, 5).getExpenses().isEmpty());
+        assertTrue(expenseManager.filterByCategory("User1", "Missing", null, 5).getExpenses().isEmpty());
+        assertTrue(expenseManager.filterByDateRange("User1", null, new Date(), null, 5).getExpenses().isEmpty());
+    }
+
+    private static List<String> idsOf(List<Expense> expenses) {
+        List<String> ids = new ArrayList<>();
+        for (Expense expense : expenses) {
+            ids.add(expense.getId());
+        }
+        return ids;
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideStores")
+    public void testQueryMatchesBruteForce(ExpenseStore store) {
+        ExpenseManager manager = new ExpenseManager(store);
+        Random random = new Random(42);
+        String[] categories = {"Food", "Travel", "Rent"};
+        List<Expense> all = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Expense expense = Expense.ofCents("e" + i, "User" + (i % 2), categories[random.nextInt(3)],
+                    1 + random.nextInt(10_000), new Date(random.nextInt(1_000_000)));
+            all.add(expense);
+            manager.addExpense(expense);
+        }
+
+        for (int round = 0; round < 200; round++) {
+            ExpenseQuery.Builder builder = ExpenseQuery.forUser("User" + random.nextInt(2));
+            if (random.nextBoolean()) {
+                builder.category(categories[random.nextInt(3)].toLowerCase());
+            }
+            if (random.nextBoolean()) {
+                long start = random.nextInt(1_000_000);
+                builder.between(new Date(start), new Date(start + random.nextInt(300_000)));
+            }
+            if (random.nextBoolean()) {
+                double min = random.nextInt(100);
+                builder.minAmount(min).maxAmount(min + random.nextInt(30));
+            }
+            ExpenseQuery.Order order = ExpenseQuery.Order.values()[1 + random.nextInt(4)];
+            int limit = random.nextInt(30);
+            ExpenseQuery query = builder.orderBy(order).limit(limit).build();
+
+            Comparator<Expense> comparator = order == ExpenseQuery.Order.DATE_ASCENDING
+                    || order == ExpenseQuery.Order.DATE_DESCENDING
+                    ? Comparator.comparingLong(Expense::getTimestamp).thenComparing(Expense::getId)
+                    : Comparator.comparingLong(Expense::getAmountInCents).thenComparing(Expense::getId);
+            if (order == ExpenseQuery.Order.DATE_DESCENDING || order == ExpenseQuery.Order.AMOUNT_DESCENDING) {
+                comparator = comparator.reversed();
+            }
+            List<Expense> expected = all.stream()
+                    .filter(e -> e.getUserId().equals(query.getUserId()) && query.matches(e))
+                    .sorted(comparator).limit(limit).collect(Collectors.toList());
+
+            assertEquals(expected, manager.query(query).collect(Collectors.toList()), query.toString());
+        }
+    }
+
+    @Test
+    public void testQueryStreamIsLazyAndUnorderedByDefault() {
+        for (int i = 0; i < 50; i++) {
+            expenseManager.addExpense(new Expense("e" + i, "User1", "Food", 1.0 + i, new Date(i * 1000L)));
+        }
+        ExpenseQuery query = ExpenseQuery.forUser("User1").category("FOOD").minAmount(10.0).build();
+
+        assertEquals(41, expenseManager.query(query).count());
+        assertEquals("e49", expenseManager.query(ExpenseQuery.forUser("User1")
+                .orderBy(ExpenseQuery.Order.AMOUNT_DESCENDING).build()).findFirst().get().getId());
+        assertEquals(0, expenseManager.query(ExpenseQuery.forUser("Nobody").build()).count());
+        assertEquals(0, expenseManager.query(ExpenseQuery.forUser("User1").category("Missing").build()).count());
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.query(null));
+    }
+
+    @Test
+    public void testAddAllRejectsNulls() {
+        assertThrows(IllegalArgumentException.class, () -> expenseManager.addAll(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseManager.addAll(Arrays.asList(new Expense("1", "User1", "Food", 1.0, new Date()), null)));
+        assertEquals(0, expenseManager.size());
+    }
+
+    private static List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>();
+        for (long value : values) {
+            list.add(value);
+        }
+        list.sort(null);
+        return list;
+    }
+
+    @Test
+    void testBatchRejectedByStoreLeavesNothingBehind(@TempDir Path tempDir) throws IOException {
+        try (MappedExpenseStore ledger = new MappedExpenseStore(tempDir.resolve("ledger.bin"))) {
+            ExpenseManager manager = new ExpenseManager(ledger);
+            StatisticsManager statistics = new StatisticsManager();
+            manager.addListener(statistics);
+            List<Expense> batch = List.of(new Expense("e1", "user1", "Food", 1.0, new Date(1)),
+                    new Expense("x".repeat(65), "user1", "Food", 2.0, new Date(2)));
+
+            assertThrows(IllegalArgumentException.class, () -> manager.addAll(batch));
+
+            assertEquals(0, manager.size());
+            assertEquals(0, statistics.getUserStatistics("user1").getCount());
+        }
+    }
+
+    @Test
+    void testAddDuringListenerReplayReachesNewListener() throws Exception {
+        java.util.concurrent.CountDownLatch replayed = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch proceed = new java.util.concurrent.CountDownLatch(1);
+        ExpenseManager manager = new ExpenseManager(new IndexedExpenseStore() {
+            @Override
+            public void forEach(java.util.function.Consumer<Expense> action) {
+                super.forEach(action);
+                if (replayed.getCount() > 0) {
+                    replayed.countDown();
+                    try {
+                        proceed.await(5, java.util.concurrent.TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        manager.addExpense(new Expense("e1", "user1", "Food", 1.0, new Date(1)));
+        StatisticsManager statistics = new StatisticsManager();
+
+        Thread register = new Thread(() -> manager.addListener(statistics));
+        register.start();
+        replayed.await();
+        // Lands after the replay has read the store but before the listener is registered.
+        Thread writer = new Thread(() -> manager.addExpense(new Expense("e2", "user1", "Food", 2.0, new Date(2))));
+        writer.start();
+        writer.join(200);
+        proceed.countDown();
+        register.join();
+        writer.join();
+
+        assertEquals(2, statistics.getUserStatistics("user1").getCount());
+    }
+
+    @Test
+    void testListenersSeeAddsAndRemovesInStoreOrder() throws Exception {
+        ExpenseManager manager = new ExpenseManager(new ConcurrentExpenseStore(4));
+        StatisticsManager statistics = new StatisticsManager();
+        RollupManager rollups = new RollupManager();
+        manager.addListener(statistics);
+        manager.addListener(rollups);
+        int threads = 8;
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+        List<java.util.concurrent.Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                Random random = new Random(thread);
+                for (int i = 0; i < 20_000; i++) {
+                    String id = "e" + random.nextInt(4);
+                    if (random.nextBoolean()) {
+                        try {
+                            manager.addExpense(new Expense(id, "user1", "Food", 1.0 + thread, new Date(i)));
+                        } catch (IllegalArgumentException duplicate) {
+                            // Another thread holds this ID right now.
+                        }
+                    } else if (random.nextInt(4) == 0) {
+                        manager.addAll(List.of(new Expense(id, "user1", "Food", 2.0, new Date(i))));
+                    } else {
+                        manager.removeExpense(id);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (java.util.concurrent.Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(manager.size(), statistics.getUserStatistics("user1").getCount());
+        assertEquals(0, statistics.getUnmatchedRemovalCount());
+        assertEquals(0, rollups.getUnmatchedRemovalCount());
+    }
+
+    private static Stream<ExpenseStore> provideStores() {
+        return Stream.of(new IndexedExpenseStore(), new ColumnarExpenseStore(), new ConcurrentExpenseStore(4));
+    }
+
 }
\ No newline at end of file
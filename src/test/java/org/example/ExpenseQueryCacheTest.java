@@ -0,0 +1,178 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseQueryCacheTest {
+    private final ExpenseManager expenseManager = new ExpenseManager();
+    private final StatisticsManager statisticsManager = new StatisticsManager();
+
+    @Test
+    void testRepeatedQueriesAreServedFromCache() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 1_000);
+        expenseManager.addExpense(new Expense("e1", "alice", "Food", 10.0, new Date(1_000)));
+
+        List<Expense> first = cache.getExpensesByUser("alice");
+        List<Expense> second = cache.getExpensesByUser("alice");
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(first.get(0)));
+        assertSame(cache.filterByCategory("alice", "Food"), cache.filterByCategory("alice", "FOOD"));
+    }
+
+    @Test
+    void testWritesInvalidateOnlyThatUser() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 1_000);
+        expenseManager.addExpense(new Expense("e1", "alice", "Food", 10.0, new Date(1_000)));
+        expenseManager.addExpense(new Expense("e2", "bob", "Food", 20.0, new Date(2_000)));
+        assertEquals(10.0, cache.calculateTotal("alice"));
+        List<Expense> bob = cache.getExpensesByUser("bob");
+
+        expenseManager.addExpense(new Expense("e3", "alice", "Travel", 5.0, new Date(3_000)));
+        assertEquals(15.0, cache.calculateTotal("alice"));
+        assertEquals(10.0, cache.calculateMax("alice"));
+        assertEquals(7.5, cache.calculateAverage("alice"));
+        assertSame(bob, cache.getExpensesByUser("bob"));
+
+        expenseManager.addAll(List.of(new Expense("e4", "alice", "Food", 1.0, new Date(4_000))));
+        assertEquals(3, cache.getExpensesByUser("alice").size());
+        expenseManager.removeExpense("e1");
+        assertEquals(2, cache.filterByDateRange("alice", new Date(0), new Date(10_000)).size());
+        assertEquals(6.0, cache.calculateTotal("alice"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedByWeight() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 10);
+        for (int i = 0; i < 4; i++) {
+            expenseManager.addExpense(new Expense("a" + i, "alice", "Food", 1.0 + i, new Date(i)));
+            expenseManager.addExpense(new Expense("b" + i, "bob", "Food", 1.0 + i, new Date(i)));
+            expenseManager.addExpense(new Expense("c" + i, "carol", "Food", 1.0 + i, new Date(i)));
+        }
+
+        List<Expense> alice = cache.getExpensesByUser("alice");
+        cache.getExpensesByUser("bob");
+        assertEquals(10, cache.getWeight());
+        cache.getExpensesByUser("alice");
+        cache.getExpensesByUser("carol");
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getEntryCount());
+        assertSame(alice, cache.getExpensesByUser("alice"));
+        long missesBefore = cache.getMissCount();
+        cache.getExpensesByUser("bob");
+        assertEquals(missesBefore + 1, cache.getMissCount());
+    }
+
+    @Test
+    void testOversizedResultsAreNotCached() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 2);
+        for (int i = 0; i < 3; i++) {
+            expenseManager.addExpense(new Expense("e" + i, "alice", "Food", 1.0, new Date(i)));
+        }
+
+        assertEquals(3, cache.getExpensesByUser("alice").size());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void testPublishesHitAndMissGauges() {
+        Metrics metrics = new Metrics();
+        ExpenseManager manager = new ExpenseManager(new IndexedExpenseStore(), metrics);
+        manager.addListener(statisticsManager);
+        ExpenseQueryCache cache = new ExpenseQueryCache(manager, statisticsManager, 100, metrics);
+        manager.addExpense(new Expense("e1", "alice", "Food", 1.0, new Date(1_000)));
+
+        assertEquals(1.0, cache.getUserPercentile("alice", 50));
+        assertEquals(1.0, cache.getUserPercentile("alice", 50));
+
+        assertEquals(1L, metrics.getGauges().get("cache.hits"));
+        assertEquals(1L, metrics.getGauges().get("cache.misses"));
+        assertEquals(1L, metrics.getGauges().get("cache.entries"));
+        assertThrows(IllegalArgumentException.class, () -> cache.getUserPercentile("alice", 101));
+        assertThrows(IllegalArgumentException.class, () -> new ExpenseQueryCache(manager, statisticsManager, 0));
+    }
+
+    @Test
+    void testPercentilesFollowStatisticsManagerWhicheverListenerRunsFirst() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 100);
+        // Runs after the cache has seen a write but before the statistics manager has.
+        expenseManager.addListener(new ExpenseListener() {
+            @Override
+            public void expenseAdded(Expense expense) {
+                cache.getUserPercentile("alice", 100);
+            }
+
+            @Override
+            public void expenseRemoved(Expense expense) {
+                cache.getUserPercentile("alice", 100);
+            }
+        });
+        expenseManager.addListener(statisticsManager);
+
+        expenseManager.addExpense(new Expense("e1", "alice", "Food", 1.0, new Date(1_000)));
+        assertEquals(1.0, cache.getUserPercentile("alice", 100));
+        expenseManager.addExpense(new Expense("e2", "alice", "Food", 1.1, new Date(2_000)));
+        assertEquals(1.1, cache.getUserPercentile("alice", 100));
+        expenseManager.removeExpense("e2");
+        assertEquals(1.0, cache.getUserPercentile("alice", 100));
+    }
+
+    @Test
+    void testLargeCachesSplitTheirWeightAcrossSegments() {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 16_384);
+        expenseManager.addListener(statisticsManager);
+        expenseManager.addExpense(new Expense("e1", "alice", "Food", 1.0, new Date(1_000)));
+
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(1.0, cache.getUserPercentile("alice", i / 500.0));
+        }
+
+        // Every segment overflowed, so each is filled exactly to its share.
+        assertEquals(16_384, cache.getWeight());
+        assertEquals(16_384, cache.getEntryCount());
+        assertEquals(50_000 - 16_384, cache.getEvictionCount());
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void testConcurrentReadersSeeCurrentResults() throws Exception {
+        ExpenseQueryCache cache = new ExpenseQueryCache(expenseManager, statisticsManager, 100_000);
+        for (int i = 0; i < 64; i++) {
+            expenseManager.addExpense(new Expense("e" + i, "user" + i, "Food", 1.0 + i, new Date(i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                readers.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 0; i < 64; i++) {
+                            assertEquals(1.0 + i, cache.calculateTotal("user" + i));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // One list and one total per user, however many readers raced to compute them.
+        assertEquals(128, cache.getEntryCount());
+    }
+}
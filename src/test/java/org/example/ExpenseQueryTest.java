@@ -0,0 +1,60 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseQueryTest {
+
+    @Test
+    void testDefaultsMatchEverything() {
+        ExpenseQuery query = ExpenseQuery.forUser("user1").build();
+
+        assertEquals(ExpenseQuery.Order.ANY, query.getOrder());
+        assertEquals(Integer.MAX_VALUE, query.getLimit());
+        assertNull(query.getCategory());
+        assertTrue(query.matches(new Expense("1", "user1", "Food", 0.01, new Date(Long.MIN_VALUE))));
+    }
+
+    @Test
+    void testBoundsAreInclusiveAndCategoryIsCaseInsensitive() {
+        ExpenseQuery query = ExpenseQuery.forUser("user1").category("food")
+                .between(new Date(1000), new Date(2000)).minAmount(5.0).maxAmount(10.0).build();
+
+        assertTrue(query.matches(new Expense("1", "user1", "FOOD", 5.0, new Date(1000))));
+        assertTrue(query.matches(new Expense("2", "user1", "Food", 10.0, new Date(2000))));
+        assertFalse(query.matches(new Expense("3", "user1", "Food", 10.01, new Date(1500))));
+        assertFalse(query.matches(new Expense("4", "user1", "Food", 7.0, new Date(2001))));
+        assertFalse(query.matches(new Expense("5", "user1", "Travel", 7.0, new Date(1500))));
+    }
+
+    @Test
+    void testFinishSortsOnlyWhenSourceOrderDiffers() {
+        Expense cheap = new Expense("b", "user1", "Food", 1.0, new Date(3000));
+        Expense mid = new Expense("a", "user1", "Food", 2.0, new Date(2000));
+        Expense dear = new Expense("c", "user1", "Food", 3.0, new Date(1000));
+        ExpenseQuery query = ExpenseQuery.forUser("user1").orderBy(ExpenseQuery.Order.DATE_ASCENDING).limit(2).build();
+
+        List<Expense> sorted = query.finish(Arrays.asList(cheap, mid, dear).stream(), ExpenseQuery.Order.AMOUNT_ASCENDING)
+                .collect(Collectors.toList());
+        List<Expense> trusted = query.finish(Arrays.asList(cheap, mid, dear).stream(), ExpenseQuery.Order.DATE_ASCENDING)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(dear, mid), sorted);
+        assertEquals(Arrays.asList(cheap, mid), trusted);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ExpenseQuery.forUser(null).build());
+        assertThrows(IllegalArgumentException.class, () -> ExpenseQuery.forUser(" ").build());
+        assertThrows(IllegalArgumentException.class, () -> ExpenseQuery.forUser("user1").limit(-1));
+        assertThrows(IllegalArgumentException.class, () -> ExpenseQuery.forUser("user1").from(null));
+        assertThrows(IllegalArgumentException.class, () -> ExpenseQuery.forUser("user1").orderBy(null));
+    }
+}
@@ -92,4 +92,43 @@ class ExpenseTest {
         String expected = String.format("Expense{id='1', userId='123', category='Travel', amount=200.00, date=%s}", date);
         assertEquals(expected, expense.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetTimestamp() {
+        Expense expense = new Expense("1", "123", "Food", 100.0, new Date(12345L));
+
+        assertEquals(12345L, expense.getTimestamp());
+        assertEquals(expense.getDate().getTime(), expense.getTimestamp());
+    }
+
+    @Test
+    void testAmountInCents() {
+        Expense expense = new Expense("1", "123", "Food", 10.05, new Date());
+        assertEquals(1005, expense.getAmountInCents());
+        assertEquals(10.05, expense.getAmount());
+
+        Expense fromCents = Expense.ofCents("1", "123", "Food", 1005, expense.getDate());
+        assertEquals(expense, fromCents);
+        assertEquals(expense.hashCode(), fromCents.hashCode());
+
+        assertThrows(IllegalArgumentException.class, () -> Expense.ofCents("1", "123", "Food", 0, new Date()));
+        assertThrows(IllegalArgumentException.class, () -> Expense.ofCents(" ", "123", "Food", 1, new Date()));
+    }
+
+    @Test
+    void testAmountOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new Expense("1", "123", "Food", Double.NaN, new Date()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Expense("1", "123", "Food", Double.POSITIVE_INFINITY, new Date()));
+        assertThrows(IllegalArgumentException.class, () -> new Expense("1", "123", "Food", 1e17, new Date()));
+    }
+
+    @Test
+    void testAmountBelowHalfACentIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new Expense("1", "123", "Food", 0.004, new Date()));
+        assertEquals("Amount must be at least 0.01", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new Expense("1", "123", "Food", Double.MIN_VALUE, new Date()));
+        assertEquals(1, new Expense("1", "123", "Food", 0.005, new Date()).getAmountInCents());
+    }
+}
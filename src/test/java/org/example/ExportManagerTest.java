@@ -5,13 +5,30 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -132,5 +149,239 @@ class ExportManagerTest {
         assertTrue(output.contains("1234567.89"));
         assertFalse(output.matches("(?s).*1         user1     Food.*"));
     }
-}
 
+    @Test
+    void testExportCsvToFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("expenses.csv");
+        Date date = new Date(1700000000000L);
+        List<Expense> expenses = Arrays.asList(
+                new Expense("1", "user1", "Food", 1234567.8, date),
+                new Expense("2", "user1", "Eat, \"Drink\"", 0.05, date),
+                new Expense("3", "user2", "Caf\u00e9 \u20ac\ud83d\ude00", 10.0, date)
+        );
+
+        long rows = exportManager.exportToFile(expenses.iterator(), file, ExportFormat.CSV);
+
+        String formatted = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, rows);
+        assertEquals("id,userId,category,amount,date", lines.get(0));
+        assertEquals("1,user1,Food,1234567.80," + formatted, lines.get(1));
+        assertEquals("2,user1,\"Eat, \"\"Drink\"\"\",0.05," + formatted, lines.get(2));
+        assertEquals("3,user2,Caf\u00e9 \u20ac\ud83d\ude00,10.00," + formatted, lines.get(3));
+    }
+
+    @Test
+    void testExportTsvStreamToChannel() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Stream<Expense> expenses = Stream.of(
+                new Expense("1", "user1", "Tab\tbed", 2.5, new Date(0)),
+                new Expense("2", "user1", "back\\slash", 3.0, new Date(0)));
+
+        long rows = exportManager.export(expenses, Channels.newChannel(bytes), ExportFormat.TSV);
+
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals("id\tuserId\tcategory\tamount\tdate", lines[0]);
+        assertTrue(lines[1].startsWith("1\tuser1\tTab\\tbed\t2.50\t"));
+        assertTrue(lines[2].startsWith("2\tuser1\tback\\\\slash\t3.00\t"));
+    }
+
+    @Test
+    void testExportMatchesSimpleDateFormatAcrossDates() throws IOException {
+        SimpleDateFormat reference = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long[] instants = {0L, -1L, 951782400000L, 4102444799000L, -62135596800000L, 253402300800000L, 1710054000000L};
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < instants.length; i++) {
+            expenses.add(new Expense(String.valueOf(i), "user1", "Food", 1.0, new Date(instants[i])));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        exportManager.export(expenses.iterator(), Channels.newChannel(bytes), ExportFormat.CSV);
+
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        for (int i = 0; i < instants.length; i++) {
+            assertTrue(lines[i + 1].endsWith("," + reference.format(new Date(instants[i]))), lines[i + 1]);
+        }
+    }
+
+    @Test
+    void testExportLargeInputFlushesBuffer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Stream<Expense> expenses = IntStream.range(0, 20000)
+                .mapToObj(i -> new Expense("id" + i, "user1", "Food", 1.0, new Date(0)));
+
+        long rows = exportManager.export(expenses, Channels.newChannel(bytes), ExportFormat.CSV);
+
+        assertEquals(20000, rows);
+        assertEquals(20001, new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void testExportInvalidArguments() {
+        WritableByteChannel channel = Channels.newChannel(new ByteArrayOutputStream());
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.export((Iterator<Expense>) null, channel, ExportFormat.CSV));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.export(Stream.<Expense>empty(), null, ExportFormat.CSV));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.export(Stream.<Expense>empty(), channel, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.exportToFile(Stream.<Expense>empty(), null, ExportFormat.CSV));
+    }
+
+    @Test
+    void testParallelExportMatchesSequentialExport() throws Exception {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < ExportManager.PARALLEL_CHUNK_ROWS * 3 + 17; i++) {
+            expenses.add(new Expense("id" + i, "user" + (i % 7), "Food", 1.0 + i, new Date(i * 3_600_000L)));
+        }
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        exportManager.export(expenses.iterator(), Channels.newChannel(sequential), ExportFormat.CSV);
+        long rows = exportManager.exportParallel(expenses.iterator(), Channels.newChannel(parallel),
+                ExportFormat.CSV, executor, 2);
+        executor.shutdown();
+
+        assertEquals(expenses.size(), rows);
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+    }
+
+    @Test
+    void testParallelExportInvalidArguments() {
+        WritableByteChannel channel = Channels.newChannel(new ByteArrayOutputStream());
+        Iterator<Expense> empty = new ArrayList<Expense>().iterator();
+        assertThrows(IllegalArgumentException.class, () -> exportManager.exportParallel(null, channel, ExportFormat.CSV));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.exportParallel(empty, channel, ExportFormat.CSV, null, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.exportParallel(empty, channel, ExportFormat.CSV, ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void testBinaryRoundTrip(@TempDir Path tempDir) throws IOException {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < BinaryExpenseFormat.BLOCK_ROWS * 2 + 5; i++) {
+            // Timestamps deliberately go backwards now and then to exercise negative deltas.
+            long timestamp = (i % 3 == 0 ? -1 : 1) * i * 60_000L;
+            expenses.add(Expense.ofCents("id" + i, "user" + (i % 5), i % 2 == 0 ? "Food" : "Caf\u00e9",
+                    1 + i * 37L, new Date(timestamp)));
+        }
+        Path file = tempDir.resolve("expenses.bin");
+        StatisticsManager statistics = new StatisticsManager();
+        ExpenseManager target = new ExpenseManager();
+        target.addListener(statistics);
+
+        assertEquals(expenses.size(), exportManager.exportBinary(expenses.iterator(), file));
+        assertEquals(expenses.size(), exportManager.importBinary(file, target));
+
+        assertEquals(expenses.size(), target.size());
+        for (Expense expense : expenses) {
+            Expense loaded = target.getExpense(expense.getId());
+            assertEquals(expense, loaded);
+            assertEquals(expense.getTimestamp(), loaded.getTimestamp());
+        }
+        assertEquals(target.getExpensesByUser("user0").size(), statistics.getUserStatistics("user0").getCount());
+    }
+
+    @Test
+    void testBinaryImportDetectsCorruptBlock() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportManager.exportBinary(Arrays.asList(
+                new Expense("1", "user1", "Food", 12.5, new Date(0)),
+                new Expense("2", "user1", "Travel", 99.99, new Date(1000))).iterator(), out);
+        byte[] bytes = out.toByteArray();
+        bytes[20] ^= 0x01;
+        ExpenseManager target = new ExpenseManager();
+
+        IOException error = assertThrows(IOException.class,
+                () -> exportManager.importBinary(new ByteArrayInputStream(bytes), target));
+        assertTrue(error.getMessage().contains("checksum"));
+        assertEquals(0, target.size());
+    }
+
+    @Test
+    void testBinaryImportRejectsCorruptHeaders() throws IOException {
+        // A length far beyond the cap, more rows than a block holds, and more rows than bytes.
+        assertCorruptBinary(binaryBlock(1, Integer.MAX_VALUE, new byte[0]), "Corrupt block header");
+        assertCorruptBinary(binaryBlock(BinaryExpenseFormat.BLOCK_ROWS + 1, 1 << 20, new byte[0]),
+                "Corrupt block header");
+        assertCorruptBinary(binaryBlock(1000, 16, new byte[16]), "Corrupt block header");
+        // A checksummed payload whose user dictionary claims 2^31 entries.
+        byte[] payload = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08, 0, 0, 0, 0, 0};
+        assertCorruptBinary(binaryBlock(1, payload.length, payload), "Dictionary size out of range");
+    }
+
+    private void assertCorruptBinary(byte[] bytes, String message) {
+        ExpenseManager target = new ExpenseManager();
+        IOException error = assertThrows(IOException.class,
+                () -> exportManager.importBinary(new ByteArrayInputStream(bytes), target));
+        assertTrue(error.getMessage().contains(message), error.getMessage());
+        assertEquals(0, target.size());
+    }
+
+    private static byte[] binaryBlock(int rowCount, int length, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryExpenseFormat.MAGIC);
+        out.writeInt(BinaryExpenseFormat.VERSION);
+        out.writeInt(rowCount);
+        out.writeInt(length);
+        out.write(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        out.writeInt((int) crc.getValue());
+        out.writeInt(0);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testBinaryImportRejectsForeignInput() {
+        byte[] csv = "id,userId,category,amount,date\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class,
+                () -> exportManager.importBinary(new ByteArrayInputStream(csv), new ExpenseManager()));
+    }
+
+    @Test
+    void testBinaryInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.exportBinary(null, new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.importBinary(new ByteArrayInputStream(new byte[0]), null));
+    }
+
+    @Test
+    void testImportDelimitedRoundTrip(@TempDir Path tempDir) throws IOException {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            expenses.add(Expense.ofCents("id" + i, "user" + (i % 7), i % 2 == 0 ? "Food" : "Rent, shared",
+                    1 + i * 13L, new Date(1_700_000_000_000L + i * 1000L)));
+        }
+        Path file = tempDir.resolve("expenses.csv");
+        exportManager.exportToFile(expenses.iterator(), file, ExportFormat.CSV);
+        ExpenseManager target = new ExpenseManager();
+
+        ImportReport report = exportManager.importDelimited(file, ExportFormat.CSV, target);
+
+        assertEquals(expenses.size(), report.getImported());
+        assertEquals(0, report.getRejected());
+        assertTrue(report.getErrors().isEmpty());
+        for (Expense expense : expenses) {
+            assertEquals(expense, target.getExpense(expense.getId()));
+            assertEquals(expense.getTimestamp(), target.getExpense(expense.getId()).getTimestamp());
+        }
+    }
+
+    @Test
+    void testImportDelimitedInvalidArguments(@TempDir Path tempDir) {
+        Path file = tempDir.resolve("missing.csv");
+        ExpenseManager target = new ExpenseManager();
+        assertThrows(IllegalArgumentException.class, () -> exportManager.importDelimited(null, ExportFormat.CSV, target));
+        assertThrows(IllegalArgumentException.class, () -> exportManager.importDelimited(file, null, target));
+        assertThrows(IllegalArgumentException.class, () -> exportManager.importDelimited(file, ExportFormat.CSV, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportManager.importDelimited(file, ExportFormat.CSV, target, ForkJoinPool.commonPool(), 0));
+    }
+}
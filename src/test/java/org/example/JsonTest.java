@@ -0,0 +1,37 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void testParsesFlatObject() {
+        Map<String, Object> object = Json.parseObject(
+                " { \"id\" : \"e\\\"1\\u00e9\", \"amount\": 12.5, \"neg\": -3e2, \"ok\": true, \"none\": null } ");
+
+        assertEquals("e\"1\u00e9", object.get("id"));
+        assertEquals(12.5, object.get("amount"));
+        assertEquals(-300.0, object.get("neg"));
+        assertEquals(Boolean.TRUE, object.get("ok"));
+        assertTrue(object.containsKey("none"));
+        assertNull(object.get("none"));
+        assertTrue(Json.parseObject("{}").isEmpty());
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        for (String text : new String[]{"", "[]", "{\"a\":1", "{\"a\":{}}", "{\"a\":1} x", "{\"a\":1,\"a\":2}",
+                "{\"a\":\"\\q\"}", "{\"a\":1-}", "{a:1}"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parseObject(text), text);
+        }
+    }
+
+    @Test
+    void testQuoteEscapesSpecialCharacters() {
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", Json.quote("a\"b\\c\n\u0001", new StringBuilder()).toString());
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesStayWithinOneSixteenth() {
+        Random random = new Random(11);
+        long[] latencies = new long[10_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = 1 + (long) Math.abs(random.nextGaussian() * 200_000);
+            histogram.record(latencies[i]);
+        }
+        Arrays.sort(latencies);
+
+        for (double percentile : new double[]{1, 50, 90, 99, 100}) {
+            long exact = latencies[(int) Math.ceil(percentile / 100.0 * latencies.length) - 1];
+            long estimate = histogram.valueAtPercentile(percentile);
+            assertTrue(Math.abs(estimate - exact) <= exact / 16,
+                    "p" + percentile + ": exact " + exact + ", estimate " + estimate);
+        }
+        assertEquals(latencies[latencies.length - 1], histogram.getMaxNanos());
+        assertEquals(Arrays.stream(latencies).sum(), histogram.getTotalNanos());
+    }
+
+    @Test
+    void testEmptyHistogramAndExtremes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+    }
+
+    @Test
+    void testConcurrentRecordsAreNotLost() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 1; i <= 25_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(25_000, histogram.getMaxNanos());
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearBucketsTest {
+
+    @Test
+    void testValuesBelowSubBucketCountAreExact() {
+        for (int bits : new int[]{3, 7}) {
+            for (long value = 0; value < 1 << bits; value++) {
+                assertEquals(value, LogLinearBuckets.indexOf(value, bits));
+                assertEquals(value, LogLinearBuckets.midpointOf((int) value, bits));
+            }
+        }
+    }
+
+    @Test
+    void testMidpointsStayInTheirBucketWithinRelativeError() {
+        for (int bits : new int[]{3, 7}) {
+            double relativeError = 1.0 / (1 << (bits + 1));
+            for (long value : new long[]{8, 9, 15, 16, 127, 128, 255, 256, 257, 1_000_003, Long.MAX_VALUE}) {
+                int index = LogLinearBuckets.indexOf(value, bits);
+                long midpoint = LogLinearBuckets.midpointOf(index, bits);
+                assertEquals(index, LogLinearBuckets.indexOf(midpoint, bits), "bits " + bits + ", value " + value);
+                assertTrue(Math.abs(midpoint - value) <= value * relativeError);
+                assertTrue(index < LogLinearBuckets.bucketCount(bits));
+            }
+        }
+    }
+
+    @Test
+    void testIndexesIncreaseWithValue() {
+        int previous = -1;
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 / 2 + 1) {
+            int index = LogLinearBuckets.indexOf(value, 3);
+            assertTrue(index >= previous);
+            previous = index;
+        }
+        assertEquals(LogLinearBuckets.bucketCount(3) - 1, LogLinearBuckets.indexOf(Long.MAX_VALUE, 3));
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedExpenseStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAddGetAndQueries() throws IOException {
+        try (MappedExpenseStore store = new MappedExpenseStore(tempDir.resolve("ledger.dat"))) {
+            Expense expense = new Expense("1", "user1", "Food", 12.34, new Date(3000));
+            store.add(expense);
+            store.add(new Expense("2", "user1", "TRAVEL", 20.0, new Date(1000)));
+            store.add(new Expense("3", "user2", "Food", 5.0, new Date(2000)));
+
+            assertEquals(expense, store.get("1"));
+            assertNull(store.get("4"));
+            assertEquals(3, store.size());
+            assertEquals(2, store.findByUser("user1").size());
+            assertEquals(1, store.findByCategory("user1", "travel").size());
+            List<Expense> range = store.findByDateRange("user1", 0, 5000);
+            assertEquals("2", range.get(0).getId());
+            assertArrayEquals(new long[]{1234, 2000}, store.amountsInCents("user1"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.add(new Expense("1", "user3", "Food", 1.0, new Date())));
+        }
+    }
+
+    @Test
+    void testReopenRestoresLiveRecords() throws IOException {
+        Path path = tempDir.resolve("ledger.dat");
+        try (MappedExpenseStore store = new MappedExpenseStore(path)) {
+            store.add(new Expense("1", "user1", "Food", 10.0, new Date(1000)));
+            store.add(new Expense("2", "user1", "Food", 20.0, new Date(2000)));
+            assertNotNull(store.remove("1"));
+            assertNull(store.remove("1"));
+        }
+
+        try (MappedExpenseStore store = new MappedExpenseStore(path)) {
+            assertEquals(1, store.size());
+            assertNull(store.get("1"));
+            assertEquals(new Expense("2", "user1", "Food", 20.0, new Date(2000)), store.get("2"));
+            store.add(new Expense("1", "user1", "Food", 30.0, new Date(3000)));
+            assertEquals(2, store.findByUser("user1").size());
+        }
+    }
+
+    @Test
+    void testSpansMultipleSegments() throws IOException {
+        try (MappedExpenseStore store = new MappedExpenseStore(tempDir.resolve("ledger.dat"))) {
+            int count = 70000;
+            for (int i = 0; i < count; i++) {
+                store.add(new Expense("e" + i, "user" + (i % 10), "Food", 1.0, new Date(i)));
+            }
+            assertEquals(count, store.size());
+            assertEquals(new Expense("e69999", "user9", "Food", 1.0, new Date(69999)), store.get("e69999"));
+            assertEquals(count / 10, store.findByUser("user3").size());
+        }
+    }
+
+    @Test
+    void testRejectsOversizedFieldsAndForeignFiles() throws IOException {
+        try (MappedExpenseStore store = new MappedExpenseStore(tempDir.resolve("ledger.dat"))) {
+            String longId = new String(new char[MappedExpenseStore.MAX_FIELD_BYTES + 1]).replace('\0', 'x');
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.add(new Expense(longId, "user1", "Food", 1.0, new Date())));
+            assertEquals(0, store.size());
+        }
+
+        Path other = tempDir.resolve("other.dat");
+        Files.write(other, "not a ledger".getBytes());
+        assertThrows(IOException.class, () -> new MappedExpenseStore(other));
+        assertEquals(12, Files.size(other));
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+    private final Metrics metrics = new Metrics();
+
+    @AfterEach
+    void tearDown() {
+        metrics.close();
+    }
+
+    @Test
+    void testTimerRecordsOperations() throws InterruptedException {
+        OperationTimer timer = metrics.timer("sleep");
+        for (int i = 0; i < 3; i++) {
+            long start = timer.start();
+            Thread.sleep(2);
+            timer.stop(start);
+        }
+
+        assertSame(timer, metrics.timer("sleep"));
+        assertEquals(3, timer.getCount());
+        assertTrue(timer.getP50Micros() >= 1_500, timer.toString());
+        assertTrue(timer.getMaxMicros() >= timer.getP99Micros());
+    }
+
+    @Test
+    void testDisabledMetricsAreNoOps() {
+        OperationTimer timer = Metrics.DISABLED.timer("anything");
+        timer.stop(timer.start());
+        Metrics.DISABLED.gauge("rows", () -> 1);
+
+        assertFalse(Metrics.DISABLED.isEnabled());
+        assertSame(OperationTimer.DISABLED, timer);
+        assertEquals(0, timer.getCount());
+        assertTrue(Metrics.DISABLED.getGauges().isEmpty());
+    }
+
+    @Test
+    void testExpenseManagerPublishesTimersAndGauges() {
+        ExpenseManager manager = new ExpenseManager(new IndexedExpenseStore(), metrics);
+        manager.addExpense(new Expense("e1", "alice", "Food", 10.0, new Date(1_000)));
+        manager.addExpense(new Expense("e2", "bob", "Food", 20.0, new Date(2_000)));
+        manager.getExpensesByUser("alice");
+        manager.removeExpense("e2");
+
+        Map<String, Long> gauges = metrics.getGauges();
+        assertEquals(1L, gauges.get("expenses.rows"));
+        assertEquals(1L, gauges.get("expenses.users"));
+        assertEquals(2, metrics.timer("expenses.addExpense").getCount());
+        assertEquals(1, metrics.timer("expenses.getExpensesByUser").getCount());
+        assertEquals(1, metrics.timer("expenses.removeExpense").getCount());
+        assertTrue(metrics.getReport().contains("expenses.addExpense count=2"));
+    }
+
+    @Test
+    void testRegistersMBeansIncludingLaterTimers() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        metrics.gauge("rows", () -> 42);
+        metrics.timer("early").stop(metrics.timer("early").start());
+        metrics.registerMBeans("org.example.test");
+        metrics.timer("late");
+
+        ObjectName registry = new ObjectName("org.example.test:type=Metrics");
+        ObjectName early = new ObjectName("org.example.test:type=Operation,name=\"early\"");
+        ObjectName late = new ObjectName("org.example.test:type=Operation,name=\"late\"");
+        assertTrue(server.isRegistered(registry));
+        assertTrue(server.isRegistered(late));
+        assertEquals(1L, server.getAttribute(early, "Count"));
+        assertThrows(IllegalStateException.class, () -> metrics.registerMBeans("org.example.other"));
+
+        metrics.close();
+        assertFalse(server.isRegistered(registry));
+        assertFalse(server.isRegistered(early));
+    }
+
+    @Test
+    void testReporterPrintsPeriodically() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        metrics.gauge("rows", () -> 7);
+        metrics.startReporter(10, TimeUnit.MILLISECONDS, out);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!bytes.toString(StandardCharsets.UTF_8).contains("rows 7") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("rows 7"));
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> metrics.timer(" "));
+        assertThrows(IllegalArgumentException.class, () -> metrics.gauge("rows", null));
+        assertThrows(IllegalArgumentException.class, () -> new ExpenseManager(new IndexedExpenseStore(), null));
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupManagerTest {
+    private static final long DAY = 86_400_000L;
+    private static final long JAN_1_2026 = 1_767_225_600_000L; // 2026-01-01T00:00:00Z
+
+    private ExpenseManager expenseManager;
+    private RollupManager rollups;
+
+    @BeforeEach
+    void setUp() {
+        expenseManager = new ExpenseManager();
+        rollups = new RollupManager(TimeZone.getTimeZone("UTC"));
+        expenseManager.addListener(rollups);
+    }
+
+    @Test
+    void testYearOfDailyExpensesRollsUpToTwelveMonths() {
+        long expectedTotal = 0;
+        for (int day = 0; day < 365; day++) {
+            expenseManager.addExpense(Expense.ofCents("f" + day, "user1", "Food", 100 + day, new Date(JAN_1_2026 + day * DAY)));
+            expenseManager.addExpense(Expense.ofCents("t" + day, "user1", "Travel", 50, new Date(JAN_1_2026 + day * DAY + 1)));
+            expectedTotal += 100 + day;
+        }
+
+        List<RollupPoint> food = rollups.getMonthlySeries("user1", "FOOD",
+                new Date(JAN_1_2026), new Date(JAN_1_2026 + 364 * DAY));
+
+        assertEquals(12, food.size());
+        assertEquals(new Date(JAN_1_2026), food.get(0).getBucketStart());
+        assertEquals(31, food.get(0).getCount());
+        assertEquals(28, food.get(1).getCount());
+        assertEquals(expectedTotal, food.stream().mapToLong(RollupPoint::getTotalInCents).sum());
+
+        List<RollupPoint> all = rollups.getMonthlySeries("user1", null, new Date(JAN_1_2026), new Date(JAN_1_2026));
+        assertEquals(1, all.size());
+        assertEquals(62, all.get(0).getCount());
+        assertEquals(food.get(0).getTotalInCents() + 31 * 50, all.get(0).getTotalInCents());
+    }
+
+    @Test
+    void testDailySeriesTracksRemovals() {
+        expenseManager.addExpense(Expense.ofCents("1", "user1", "Food", 1000, new Date(JAN_1_2026 + 10)));
+        expenseManager.addExpense(Expense.ofCents("2", "user1", "Food", 250, new Date(JAN_1_2026 + DAY - 1)));
+        expenseManager.addExpense(Expense.ofCents("3", "user1", "Food", 300, new Date(JAN_1_2026 + 2 * DAY)));
+
+        List<RollupPoint> days = rollups.getDailySeries("user1", "Food", new Date(JAN_1_2026), new Date(JAN_1_2026 + 3 * DAY));
+        assertEquals(2, days.size());
+        assertEquals(new RollupPoint(JAN_1_2026, 2, 1250), days.get(0));
+        assertEquals(new RollupPoint(JAN_1_2026 + 2 * DAY, 1, 300), days.get(1));
+
+        expenseManager.removeExpense("3");
+        expenseManager.removeExpense("1");
+
+        days = rollups.getDailySeries("user1", "Food", new Date(JAN_1_2026), new Date(JAN_1_2026 + 3 * DAY));
+        assertEquals(1, days.size());
+        assertEquals(new RollupPoint(JAN_1_2026, 1, 250), days.get(0));
+    }
+
+    @Test
+    void testBucketsFollowTimeZone() {
+        RollupManager tokyo = new RollupManager(TimeZone.getTimeZone("Asia/Tokyo"));
+        // 2025-12-31T20:00Z is already January 1st in Tokyo.
+        tokyo.expenseAdded(Expense.ofCents("1", "user1", "Food", 100, new Date(JAN_1_2026 - 4 * 3_600_000L)));
+
+        List<RollupPoint> months = tokyo.getMonthlySeries("user1", "food", new Date(JAN_1_2026), new Date(JAN_1_2026));
+
+        assertEquals(1, months.size());
+        assertEquals(new Date(JAN_1_2026 - 9 * 3_600_000L), months.get(0).getBucketStart());
+    }
+
+    @Test
+    void testUnknownOrInvalidQueries() {
+        Date now = new Date();
+        assertTrue(rollups.getMonthlySeries("nobody", null, now, now).isEmpty());
+        assertTrue(rollups.getMonthlySeries(null, null, now, now).isEmpty());
+        assertTrue(rollups.getDailySeries("user1", null, null, now).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> rollups.getSeries("user1", null, null, now, now));
+        assertThrows(IllegalArgumentException.class, () -> new RollupManager(null));
+    }
+
+    @Test
+    void testRemovalOfUnknownExpenseIsCounted() {
+        Expense counted = Expense.ofCents("e1", "user1", "Food", 100, new Date(JAN_1_2026));
+        expenseManager.addExpense(counted);
+        rollups.expenseRemoved(Expense.ofCents("e2", "user1", "Food", 100, new Date(JAN_1_2026 + 40 * DAY)));
+        rollups.expenseRemoved(Expense.ofCents("e3", "user2", "Food", 100, new Date(JAN_1_2026)));
+
+        assertEquals(2, rollups.getUnmatchedRemovalCount());
+        assertEquals(1, rollups.getMonthlySeries("user1", "Food", new Date(JAN_1_2026),
+                new Date(JAN_1_2026 + 60 * DAY)).get(0).getCount());
+    }
+}
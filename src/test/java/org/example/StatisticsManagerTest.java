@@ -90,4 +90,157 @@ class StatisticsManagerTest {
                 }
         );
     }
+
+    @Test
+    void testCentsCalculations() {
+        long[] amounts = {123, 456, 789};
+
+        assertEquals(13.68, statisticsManager.totalOfCents(amounts));
+        assertEquals(7.89, statisticsManager.maxOfCents(amounts));
+        assertEquals(4.56, statisticsManager.averageOfCents(amounts));
+    }
+
+    @Test
+    void testCentsCalculationsEmptyAndNull() {
+        assertEquals(0.0, statisticsManager.totalOfCents(new long[0]));
+        assertEquals(0.0, statisticsManager.maxOfCents(new long[0]));
+        assertEquals(0.0, statisticsManager.averageOfCents(new long[0]));
+        assertThrows(IllegalArgumentException.class, () -> statisticsManager.totalOfCents(null));
+        assertThrows(IllegalArgumentException.class, () -> statisticsManager.maxOfCents(null));
+        assertThrows(IllegalArgumentException.class, () -> statisticsManager.averageOfCents(null));
+    }
+
+    @Test
+    void testTrackedStatisticsFollowAddsAndRemoves() {
+        Expense small = new Expense("1", "123", "Food", 1.23, new Date());
+        Expense large = new Expense("2", "123", "Travel", 7.89, new Date());
+        Expense middle = new Expense("3", "123", "Other", 4.56, new Date());
+        statisticsManager.expenseAdded(small);
+        statisticsManager.expenseAdded(large);
+        statisticsManager.expenseAdded(middle);
+
+        UserStatistics stats = statisticsManager.getUserStatistics("123");
+        assertEquals(3, stats.getCount());
+        assertEquals(13.68, stats.getTotal());
+        assertEquals(7.89, stats.getMax());
+        assertEquals(1.23, stats.getMin());
+        assertEquals(4.56, stats.getAverage());
+
+        statisticsManager.expenseRemoved(large);
+        stats = statisticsManager.getUserStatistics("123");
+        assertEquals(2, stats.getCount());
+        assertEquals(4.56, stats.getMax());
+        assertEquals(2.90, stats.getAverage());
+
+        statisticsManager.expenseRemoved(small);
+        statisticsManager.expenseRemoved(middle);
+        assertEquals(UserStatistics.EMPTY, statisticsManager.getUserStatistics("123"));
+    }
+
+    @Test
+    void testTrackedStatisticsWithDuplicateAmountsAndUnknownUsers() {
+        statisticsManager.expenseAdded(new Expense("1", "123", "Food", 5.0, new Date()));
+        statisticsManager.expenseAdded(new Expense("2", "123", "Food", 5.0, new Date()));
+        statisticsManager.expenseRemoved(new Expense("1", "123", "Food", 5.0, new Date()));
+
+        assertEquals(5.0, statisticsManager.getUserStatistics("123").getMax());
+        assertEquals(UserStatistics.EMPTY, statisticsManager.getUserStatistics("456"));
+        assertEquals(UserStatistics.EMPTY, statisticsManager.getUserStatistics(null));
+
+        statisticsManager.expenseRemoved(new Expense("9", "456", "Food", 5.0, new Date()));
+        assertEquals(0, statisticsManager.getUserStatistics("456").getCount());
+    }
+
+    @Test
+    void testTrackedStatisticsMatchListCalculations() {
+        ExpenseManager expenseManager = new ExpenseManager();
+        expenses.forEach(expenseManager::addExpense);
+        expenseManager.addListener(statisticsManager);
+        expenseManager.addExpense(new Expense("3", "123", "Other", 0.01, new Date()));
+
+        List<Expense> userExpenses = expenseManager.getExpensesByUser("123");
+        UserStatistics stats = statisticsManager.getUserStatistics("123");
+        assertEquals(statisticsManager.calculateTotal(userExpenses), stats.getTotal());
+        assertEquals(statisticsManager.calculateMax(userExpenses), stats.getMax());
+        assertEquals(statisticsManager.calculateAverage(userExpenses), stats.getAverage());
+    }
+
+    @Test
+    void testTotalInCentsIsExact() {
+        List<Expense> cents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cents.add(new Expense(String.valueOf(i), "123", "Food", 0.1, new Date()));
+        }
+
+        assertEquals(100, statisticsManager.calculateTotalInCents(cents));
+        assertEquals(1.0, statisticsManager.calculateTotal(cents));
+        assertEquals(0.1, statisticsManager.calculateAverage(cents));
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        long huge = Long.MAX_VALUE / 2 + 1;
+        List<Expense> hugeExpenses = Arrays.asList(
+                Expense.ofCents("1", "123", "Food", huge, new Date()),
+                Expense.ofCents("2", "123", "Food", huge, new Date())
+        );
+
+        assertThrows(ArithmeticException.class, () -> statisticsManager.calculateTotal(hugeExpenses));
+        assertThrows(ArithmeticException.class, () -> statisticsManager.calculateAverage(hugeExpenses));
+        assertThrows(ArithmeticException.class, () -> statisticsManager.totalOfCents(new long[]{huge, huge}));
+    }
+
+    @Test
+    void testAverageRoundsHalfUp() {
+        assertEquals(2, StatisticsManager.averageOfCents(3, 2));
+        assertEquals(2, StatisticsManager.averageOfCents(5, 3));
+        assertEquals(1, StatisticsManager.averageOfCents(4, 3));
+        assertEquals(Long.MAX_VALUE / 2 + 1, StatisticsManager.averageOfCents(Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void testPercentilesMaintainedPerUserAndCategory() {
+        ExpenseManager expenseManager = new ExpenseManager();
+        expenseManager.addListener(statisticsManager);
+        for (int i = 1; i <= 100; i++) {
+            expenseManager.addExpense(Expense.ofCents("f" + i, "123", "Food", i, new Date()));
+            expenseManager.addExpense(Expense.ofCents("t" + i, "123", "Travel", 10_000 + i, new Date()));
+        }
+
+        assertEquals(0.50, statisticsManager.getCategoryPercentile("123", "food", 50));
+        assertEquals(0.99, statisticsManager.getCategoryPercentile("123", "FOOD", 99));
+        assertEquals(100.90, statisticsManager.getCategoryPercentile("123", "Travel", 90),
+                100.90 * AmountHistogram.RELATIVE_ERROR);
+        assertEquals(1.00, statisticsManager.getUserPercentile("123", 50));
+        assertEquals(200, statisticsManager.getUserHistogram("123").getCount());
+
+        expenseManager.removeExpense("f100");
+        assertEquals(99, statisticsManager.getCategoryHistogram("123", "Food").getCount());
+        assertEquals(0.0, statisticsManager.getCategoryPercentile("123", "Rent", 50));
+        assertEquals(0.0, statisticsManager.getUserPercentile(null, 50));
+    }
+
+    @Test
+    void testRemovalOfUnknownExpenseIsCounted() {
+        statisticsManager.expenseAdded(expenses.get(0));
+        statisticsManager.expenseRemoved(expenses.get(1));
+        statisticsManager.expenseRemoved(new Expense("3", "nobody", "Food", 1.0, new Date()));
+        statisticsManager.expenseRemoved(expenses.get(0));
+
+        assertEquals(2, statisticsManager.getUnmatchedRemovalCount());
+        assertEquals(0, statisticsManager.getUserStatistics("123").getCount());
+    }
+
+    @Test
+    void testVersionChangesOnlyWhenTotalsChange() {
+        assertEquals(0, statisticsManager.version("123"));
+        statisticsManager.expenseAdded(expenses.get(0));
+        long afterAdd = statisticsManager.version("123");
+        statisticsManager.expenseRemoved(new Expense("9", "123", "Food", 999.0, new Date()));
+        assertEquals(afterAdd, statisticsManager.version("123"));
+
+        statisticsManager.expenseRemoved(expenses.get(0));
+        assertTrue(statisticsManager.version("123") > afterAdd);
+        assertEquals(0, statisticsManager.version(null));
+    }
 }
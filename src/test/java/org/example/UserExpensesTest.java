@@ -0,0 +1,97 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExpensesTest {
+    private UserExpenses userExpenses;
+    private CategoryDictionary categories;
+
+    @BeforeEach
+    void setUp() {
+        userExpenses = new UserExpenses();
+        categories = new CategoryDictionary();
+        add("b", "user1", "Food", 10.0, new Date(2000));
+        add("a", "user1", "Food", 20.0, new Date(2000));
+        add("c", "user1", "Travel", 30.0, new Date(1000));
+        add("d", "user1", "Travel", 40.0, new Date(3000));
+    }
+
+    private void add(String id, String userId, String category, double amount, Date date) {
+        userExpenses.add(new Expense(id, userId, category, amount, date), categories.intern(category));
+    }
+
+    @Test
+    void testBetweenIsInclusiveAndTimeOrdered() {
+        List<Expense> result = new ArrayList<>(userExpenses.between(1000, 2000));
+
+        assertEquals(3, result.size());
+        assertEquals("c", result.get(0).getId());
+        assertEquals("a", result.get(1).getId());
+        assertEquals("b", result.get(2).getId());
+    }
+
+    @Test
+    void testBetweenWithReversedOrEmptyRange() {
+        assertTrue(userExpenses.between(3000, 1000).isEmpty());
+        assertTrue(userExpenses.between(4000, 5000).isEmpty());
+        assertEquals(1, userExpenses.between(Long.MIN_VALUE, 1000).size());
+        assertEquals(1, userExpenses.between(3000, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testRemoveUpdatesDateIndex() {
+        int food = categories.lookup("Food");
+        assertNotNull(userExpenses.remove("a", food));
+        assertNull(userExpenses.remove("a", food));
+
+        assertEquals(3, userExpenses.size());
+        assertEquals(1, userExpenses.between(2000, 2000).size());
+    }
+
+    @Test
+    void testInCategoryPostingLists() {
+        int food = categories.lookup("food");
+        int travel = categories.lookup("TRAVEL");
+
+        assertEquals(ids("a", "b"), ids(userExpenses.inCategory(food)));
+        assertEquals(ids("c", "d"), ids(userExpenses.inCategory(travel)));
+        assertTrue(userExpenses.inCategory(categories.intern("Other")).isEmpty());
+
+        userExpenses.remove("a", food);
+        userExpenses.remove("b", food);
+        assertTrue(userExpenses.inCategory(food).isEmpty());
+        assertEquals(ids("c", "d"), ids(userExpenses.inCategory(travel)));
+        add("e", "user1", "FOOD", 5.0, new Date(500));
+        assertEquals(ids("e"), ids(userExpenses.inCategory(food)));
+    }
+
+    @Test
+    void testAfterResumesStrictlyPastCursor() {
+        assertEquals(ids("c", "a", "b", "d"), ids(userExpenses.after(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, null)));
+        assertEquals(ids("b", "d"), ids(userExpenses.after(null, Long.MIN_VALUE, Long.MAX_VALUE, 2000, "a")));
+        assertEquals(ids("d"), ids(userExpenses.after(categories.lookup("travel"), 0, 5000, 1000, "c")));
+        // A cursor before the range start falls back to the range start; one past the end yields nothing.
+        assertEquals(ids("a", "b"), ids(userExpenses.after(null, 2000, 2000, 1000, "c")));
+        assertTrue(userExpenses.after(null, 0, 2000, 2000, "b").isEmpty());
+        assertTrue(userExpenses.after(categories.lookup("missing"), 0, 5000, 0, null).isEmpty());
+    }
+
+    private static List<String> ids(String... ids) {
+        return java.util.Arrays.asList(ids);
+    }
+
+    private static List<String> ids(java.util.Collection<Expense> expenses) {
+        List<String> result = new ArrayList<>();
+        for (Expense expense : expenses) {
+            result.add(expense.getId());
+        }
+        return result;
+    }
+}
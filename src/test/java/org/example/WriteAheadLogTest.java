@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path tempDir;
+
+    private static List<String> replay(Path path) throws IOException {
+        List<String> records = new ArrayList<>();
+        // Opening the log replays it; the records are all that is needed.
+        new WriteAheadLog(path, 0, buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            records.add(new String(bytes, StandardCharsets.UTF_8));
+        }).close();
+        return records;
+    }
+
+    @Test
+    void testAppendAndReplay() throws IOException {
+        Path path = tempDir.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(path, 0, null)) {
+            log.awaitDurable(log.append("first".getBytes(StandardCharsets.UTF_8)));
+            log.awaitDurable(log.append("second".getBytes(StandardCharsets.UTF_8)));
+            assertTrue(log.getSyncCount() >= 1);
+        }
+
+        List<String> records = replay(path);
+        assertEquals(2, records.size());
+        assertEquals("first", records.get(0));
+        assertEquals("second", records.get(1));
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        Path path = tempDir.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(path, 0, null)) {
+            log.awaitDurable(log.append("kept".getBytes(StandardCharsets.UTF_8)));
+        }
+        long validSize = Files.size(path);
+        Files.write(path, new byte[]{0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+
+        assertEquals(1, replay(path).size());
+        assertEquals(validSize, Files.size(path));
+    }
+
+    @Test
+    void testCloseFlushesPendingRecordsAndRejectsAppends() throws IOException {
+        Path path = tempDir.resolve("wal.log");
+        WriteAheadLog log = new WriteAheadLog(path, 50, null);
+        log.append("pending".getBytes(StandardCharsets.UTF_8));
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> log.append(new byte[1]));
+        assertEquals(1, replay(path).size());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(null, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(tempDir.resolve("wal.log"), -1, null));
+    }
+}